@@ -0,0 +1,69 @@
+package com.cardsForest.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cardsForest.foundations.Stack;
+import com.cardsForest.games.klondike.Klondike;
+import com.cardsForest.glue.Selection;
+
+/**
+ * {@code TableauBehavior.click} on a headless game: 
+ * selecting the top card of a pile, and trying to drop it on an empty pile
+ * (not legal, the card is not a king) <br>
+ * each invocation cancels the selection so the game does not change
+ * 
+ * @author Amit Portnoy
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BehaviorBenchmark {
+
+	Klondike game;
+	Selection selection;
+	/** single card pile */
+	Stack pile;
+	/** an empty tableau pile */
+	Stack empty;
+	
+	@Setup
+	public void setup(){
+		game = new Klondike(true);
+		pile = Cards.dealWithoutKingOnFirstPile(game);
+		selection = game.selection;
+		//empty a pile by moving its cards away (the stock is a convenient place)
+		empty = game.getStacks().get(7);
+		empty.moveTo(game.getStacks().get(1), empty.size(), true);
+	}
+	
+	@Benchmark
+	public Stack selectAndCancel(){
+		pile.getBehavior().click(pile, pile.size() - 1);
+		Stack src = selection.src;
+		selection.selectEnd(null);
+		return src;
+	}
+	
+	@Benchmark
+	public Stack selectAndTryEmptyPile(){
+		pile.getBehavior().click(pile, pile.size() - 1);
+		empty.getBehavior().click(empty, -1);
+		Stack src = selection.src;
+		selection.selectEnd(null);
+		return src;
+	}
+}
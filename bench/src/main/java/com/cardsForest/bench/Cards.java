@@ -0,0 +1,89 @@
+package com.cardsForest.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cardsForest.foundations.Card;
+import com.cardsForest.foundations.Face;
+import com.cardsForest.foundations.PackedCard;
+import com.cardsForest.foundations.Stack;
+import com.cardsForest.games.klondike.Klondike;
+import com.cardsForest.logic.GameLogic;
+
+/**
+ * fixtures shared by the benchmarks
+ * 
+ * @author Amit Portnoy
+ */
+final class Cards {
+
+	/** benchmark screen size */
+	static final int WIDTH = 800, HEIGHT = 600;
+	
+	/**
+	 * static class behavior
+	 */
+	private Cards(){
+		throw new UnsupportedOperationException();
+	}
+	
+	/**
+	 * @param suit suit ordinal (clubs, diamonds, hearts, spades)
+	 * @param rank rank ordinal (ace is 0)
+	 * @return a face up card
+	 */
+	static Card card(int suit, int rank){
+		return new Card(Face.values()[suit * PackedCard.RANKS + rank], true);
+	}
+	
+	/**
+	 * @return king to ace, alternating colors (a legal tableau run)
+	 */
+	static List<Card> tableauRun(){
+		List<Card> run = new ArrayList<Card>();
+		for (int rank = PackedCard.RANKS - 1; rank >= 0; rank--){
+			//spades and hearts
+			run.add(card(rank % 2 == 0? 3 : 2, rank));
+		}
+		return run;
+	}
+	
+	/**
+	 * @return ace to king of clubs (a legal foundation)
+	 */
+	static List<Card> foundationRun(){
+		List<Card> run = new ArrayList<Card>();
+		for (int rank = 0; rank < PackedCard.RANKS; rank++){
+			run.add(card(0, rank));
+		}
+		return run;
+	}
+	
+	/**
+	 * lay out a game with sprites for an 800x600 screen
+	 * @param game the game (must not be headless)
+	 */
+	static void layout(GameLogic game){
+		for (Stack stack : game.getStacks()){
+			stack.getSprite().updateScreenSize(WIDTH, HEIGHT);
+		}
+		game.selection.updateScreenSize(WIDTH, HEIGHT);
+		game.getContext().getOperationManager().doDisplayOperations();
+	}
+	
+	/**
+	 * first deal in which the top of the first tableau pile 
+	 * (a single card) is not a king, so it can't be moved to an empty pile
+	 * @param game the game to deal
+	 * @return the first tableau pile
+	 */
+	static Stack dealWithoutKingOnFirstPile(Klondike game){
+		for (long dealNumber = 0; ; dealNumber++){
+			game.redeal(dealNumber);
+			Stack pile = game.getStacks().get(6);
+			if (PackedCard.rank(PackedCard.pack(pile.getTop())) != PackedCard.RANKS - 1){
+				return pile;
+			}
+		}
+	}
+}
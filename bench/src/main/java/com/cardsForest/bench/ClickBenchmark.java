@@ -0,0 +1,78 @@
+package com.cardsForest.bench;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cardsForest.foundations.Stack;
+import com.cardsForest.games.klondike.Klondike;
+import com.cardsForest.glue.CardSpriteStore;
+import com.cardsForest.glue.OperationManager;
+import com.cardsForest.logic.GameLogic;
+
+/**
+ * {@link GameLogic#updateClick(Point, boolean)} and {@link GameLogic#updateClick(Rectangle)}
+ * on a game with sprites (hit testing, behaviors and the display phase) <br>
+ * each invocation selects the top card of a pile with a click, 
+ * then clicks (or drops a drag on) the same place, which cancels the selection 
+ * <p>
+ * runs without a screen ({@code -Djava.awt.headless=true} is set)
+ * 
+ * @author Amit Portnoy
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ClickBenchmark {
+
+	Klondike game;
+	OperationManager operations;
+	/** top card of the first tableau pile */
+	Point point;
+	/** bounds of the first tableau pile */
+	Rectangle rect;
+	
+	@Setup
+	public void setup(){
+		CardSpriteStore.loadAll();
+		game = new Klondike(false);
+		Stack pile = Cards.dealWithoutKingOnFirstPile(game);
+		operations = game.getContext().getOperationManager();
+		Cards.layout(game);
+		
+		rect = pile.getSprite().getBounds();
+		point = new Point(rect.x + rect.width / 2, rect.y + rect.height / 2);
+	}
+	
+	@Benchmark
+	public boolean clickPoint(){
+		game.updateClick(point, false);
+		operations.doDisplayOperations();
+		game.updateClick(point, false);
+		operations.doDisplayOperations();
+		return game.selection.isAvailable();
+	}
+	
+	@Benchmark
+	public boolean clickRectangle(){
+		game.updateClick(point, false);
+		operations.doDisplayOperations();
+		game.updateClick(rect);
+		operations.doDisplayOperations();
+		return game.selection.isAvailable();
+	}
+}
@@ -0,0 +1,92 @@
+package com.cardsForest.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cardsForest.games.klondike.DealGenerator;
+import com.cardsForest.games.klondike.Klondike;
+import com.cardsForest.games.klondike.KlondikePosition;
+import com.cardsForest.glue.CardSpriteStore;
+import com.cardsForest.glue.OperationManager;
+
+/**
+ * {@code Klondike.deal()} (through {@code redeal}, with and without sprites)
+ * compared to dealing a packed position with {@link DealGenerator}
+ * 
+ * @author Amit Portnoy
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DealBenchmark {
+
+	/**
+	 * a game to deal
+	 */
+	@State(Scope.Thread)
+	public static class Game {
+		
+		/** true to run without sprites (no display phase) */
+		@Param({"true", "false"})
+		boolean headless;
+		
+		Klondike game;
+		OperationManager operations;
+		long dealNumber;
+		
+		@Setup
+		public void setup(){
+			if (!headless){
+				CardSpriteStore.loadAll();
+			}
+			game = new Klondike(headless);
+			operations = game.getContext().getOperationManager();
+			if (!headless){
+				Cards.layout(game);
+			}
+		}
+	}
+	
+	/**
+	 * a position to deal
+	 */
+	@State(Scope.Thread)
+	public static class Packed {
+		
+		DealGenerator generator;
+		KlondikePosition position;
+		long dealNumber;
+		
+		@Setup
+		public void setup(){
+			generator = new DealGenerator();
+			position = new KlondikePosition();
+		}
+	}
+	
+	@Benchmark
+	public Klondike deal(Game g){
+		g.game.redeal(g.dealNumber++);
+		g.operations.doDisplayOperations();
+		return g.game;
+	}
+	
+	@Benchmark
+	public KlondikePosition dealPacked(Packed p){
+		p.generator.deal(p.dealNumber++, p.position);
+		return p.position;
+	}
+}
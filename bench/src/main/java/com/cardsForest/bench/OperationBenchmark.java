@@ -0,0 +1,89 @@
+package com.cardsForest.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cardsForest.foundations.Stack;
+import com.cardsForest.glue.CardSpriteStore;
+import com.cardsForest.glue.GameContext;
+import com.cardsForest.glue.OperationManager;
+
+/**
+ * {@link OperationManager}: {@code add} (the logic phase) and 
+ * {@code doDisplayOperations} (draining the log), 
+ * with a {@code MoveToOperation} back and forth and with batches of flips
+ * <p>
+ * the undo history is cleared on every invocation so it does not grow
+ * 
+ * @author Amit Portnoy
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class OperationBenchmark {
+
+	/**
+	 * a full deck and an empty stack
+	 */
+	@State(Scope.Thread)
+	public static class Stacks {
+		
+		/** true to run without sprites (no display phase) */
+		@Param({"true", "false"})
+		boolean headless;
+		
+		/** number of operations added before each drain */
+		@Param({"1", "16", "256"})
+		int operationsPerDrain;
+		
+		OperationManager operations;
+		Stack deck;
+		Stack empty;
+		
+		@Setup
+		public void setup(){
+			if (!headless){
+				CardSpriteStore.loadAll();
+			}
+			GameContext context = new GameContext(headless);
+			operations = context.getOperationManager();
+			deck = Stack.newDeck(context);
+			empty = Stack.newEmptyStack(context);
+			operations.doDisplayOperations();
+		}
+	}
+	
+	@Benchmark
+	public int moveToAndBack(Stacks s){
+		for (int i = 0; i < s.operationsPerDrain; i += 2){
+			s.deck.moveTo(s.empty, 1, true);
+			s.empty.moveTo(s.deck, 1, true);
+		}
+		s.operations.doDisplayOperations();
+		s.operations.clearHistory();
+		return s.deck.size();
+	}
+	
+	@Benchmark
+	public int flipTop(Stacks s){
+		for (int i = 0; i < s.operationsPerDrain; i++){
+			s.deck.flipTop();
+		}
+		s.operations.doDisplayOperations();
+		s.operations.clearHistory();
+		return s.deck.size();
+	}
+}
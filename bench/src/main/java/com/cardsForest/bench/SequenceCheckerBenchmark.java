@@ -0,0 +1,127 @@
+package com.cardsForest.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cardsForest.foundations.Card;
+import com.cardsForest.foundations.PackedCard;
+import com.cardsForest.foundations.PackedStack;
+import com.cardsForest.games.klondike.FoundationSequenceChecker;
+import com.cardsForest.games.klondike.TableauSequenceChecker;
+import com.cardsForest.logic.SequenceChecker;
+
+/**
+ * {@link SequenceChecker}: whole runs ({@code checkSequance}) 
+ * and single pairs ({@code checkSequential}) of both klondike checkers,
+ * on {@link Card} objects and on packed cards, 
+ * evaluating the rules or looking them up in compiled tables
+ * 
+ * @author Amit Portnoy
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SequenceCheckerBenchmark {
+
+	/** "rules" evaluates the checkers' rules, "compiled" uses {@code SequenceChecker.compile()} */
+	@Param({"rules", "compiled"})
+	String checker;
+	
+	SequenceChecker tableau;
+	SequenceChecker foundation;
+	
+	/** king to ace, alternating colors */
+	List<Card> tableauRun;
+	/** ace to king of clubs */
+	List<Card> foundationRun;
+	PackedStack packedTableauRun;
+	PackedStack packedFoundationRun;
+	
+	/** red seven on black eight */
+	Card black8, red7;
+	byte packedBlack8, packedRed7;
+	/** six of clubs on five of clubs */
+	Card clubs5, clubs6;
+	byte packedClubs5, packedClubs6;
+	
+	@Setup
+	public void setup(){
+		tableau = new TableauSequenceChecker();
+		foundation = new FoundationSequenceChecker();
+		if (checker.equals("compiled")){
+			tableau = tableau.compile();
+			foundation = foundation.compile();
+		}
+		
+		tableauRun = Cards.tableauRun();
+		foundationRun = Cards.foundationRun();
+		packedTableauRun = new PackedStack();
+		packedTableauRun.copyFrom(tableauRun);
+		packedFoundationRun = new PackedStack();
+		packedFoundationRun.copyFrom(foundationRun);
+		
+		black8 = Cards.card(3, 7);
+		red7 = Cards.card(2, 6);
+		clubs5 = Cards.card(0, 4);
+		clubs6 = Cards.card(0, 5);
+		packedBlack8 = PackedCard.pack(black8);
+		packedRed7 = PackedCard.pack(red7);
+		packedClubs5 = PackedCard.pack(clubs5);
+		packedClubs6 = PackedCard.pack(clubs6);
+	}
+	
+	@Benchmark
+	public boolean tableauCheckSequance(){
+		return tableau.checkSequance(tableauRun, true);
+	}
+	
+	@Benchmark
+	public boolean tableauCheckSequancePacked(){
+		return tableau.checkSequance(packedTableauRun, 0, true);
+	}
+	
+	@Benchmark
+	public boolean foundationCheckSequance(){
+		return foundation.checkSequance(foundationRun, true);
+	}
+	
+	@Benchmark
+	public boolean foundationCheckSequancePacked(){
+		return foundation.checkSequance(packedFoundationRun, 0, true);
+	}
+	
+	@Benchmark
+	public boolean tableauCheckSequential(){
+		return tableau.checkSequential(black8, red7);
+	}
+	
+	@Benchmark
+	public boolean tableauCheckSequentialPacked(){
+		return tableau.checkSequential(packedBlack8, packedRed7);
+	}
+	
+	@Benchmark
+	public boolean foundationCheckSequential(){
+		return foundation.checkSequential(clubs5, clubs6);
+	}
+	
+	@Benchmark
+	public boolean foundationCheckSequentialPacked(){
+		return foundation.checkSequential(packedClubs5, packedClubs6);
+	}
+}
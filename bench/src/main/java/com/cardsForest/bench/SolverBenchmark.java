@@ -0,0 +1,82 @@
+package com.cardsForest.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cardsForest.games.klondike.Klondike;
+import com.cardsForest.games.klondike.KlondikePosition;
+import com.cardsForest.games.klondike.solver.KlondikeSolver;
+import com.cardsForest.games.klondike.solver.SolverResult;
+
+/**
+ * {@link KlondikeSolver} on a deal it wins and on a deal that can't be won
+ * (the setup checks that the solver proves it, not just runs out of budget)
+ * 
+ * @author Amit Portnoy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+
+	/** a deal the solver wins */
+	static final long SOLVED_DEAL = 3;
+	/** a deal that can't be won (no column can be emptied and the clubs' ace is buried) */
+	static final long UNSOLVABLE_DEAL = 20969;
+	
+	/** the deal to solve */
+	@Param({"3", "20969"})
+	long deal;
+	
+	KlondikeSolver solver;
+	KlondikePosition position;
+	
+	@Setup
+	public void setup(){
+		solver = new KlondikeSolver();
+		position = position(deal);
+		
+		//the solver must give the known outcomes
+		check(SOLVED_DEAL, SolverResult.Status.SOLVED);
+		check(UNSOLVABLE_DEAL, SolverResult.Status.UNSOLVABLE);
+	}
+	
+	/**
+	 * @throws IllegalStateException if the solver does not give the status of a deal
+	 */
+	private void check(long deal, SolverResult.Status expected){
+		SolverResult result = solver.solve(position(deal));
+		if (result.getStatus() != expected){
+			throw new IllegalStateException("deal " + deal + ": expected " + expected 
+					+ " but was " + result.getStatus());
+		}
+	}
+	
+	/**
+	 * @return the start position of a deal
+	 */
+	private static KlondikePosition position(long deal){
+		Klondike game = new Klondike(true);
+		game.deal(deal);
+		return KlondikePosition.of(game);
+	}
+	
+	@Benchmark
+	public SolverResult solve(){
+		return solver.solve(position);
+	}
+}
@@ -0,0 +1,156 @@
+package com.cardsForest.foundations;
+
+/**
+ * compact representation of a {@link Card} as a single byte
+ * <p>
+ * the low bits hold the {@link Face} ordinal, 
+ * {@code FACE_UP} bit is set when the card is face up <br>
+ * (Face has 52 constants so the ordinal fits in the low 6 bits)
+ * <p>
+ * static class, all methods work on the packed byte value
+ * 
+ * @see PackedStack
+ * @author Amit Portnoy
+ */
+public final class PackedCard {
+
+	/** mask of the face ordinal bits */
+	public static final int FACE_MASK = 0x3F;
+	/** set when the card is face up */
+	public static final int FACE_UP = 0x40;
+	
+	/** number of ranks in a suit */
+	public static final int RANKS = Face.Rank.values().length;
+	
+	/** faces by ordinal (values() returns a new array on every call) */
+	private static final Face[] faces = Face.values();
+	
+	/** read only cards, index is the packed value */
+	private static final Card[] cards = new Card[FACE_UP << 1];
+	static {
+		for (Face face : faces){
+			cards[pack(face,false)] = new ReadOnlyCard(face,false);
+			cards[pack(face,true)] = new ReadOnlyCard(face,true);
+		}
+	}
+	
+	/**
+	 *  static class behavior:
+	 * @throws UnsupportedOperationException on creation
+	 */
+	private PackedCard(){throw new UnsupportedOperationException();}
+	
+	/**
+	 * @param face the card's face
+	 * @param faceUp true if the card is face up
+	 * @return the packed card
+	 */
+	public static byte pack(Face face, boolean faceUp){
+		return (byte) (faceUp? face.ordinal() | FACE_UP : face.ordinal());
+	}
+	
+	/**
+	 * @param card card to pack
+	 * @return the packed card
+	 */
+	public static byte pack(Card card){
+		return pack(card.getFace(),card.isFaceUp());
+	}
+	
+	/**
+	 * @param card packed card
+	 * @return the card's face ordinal
+	 */
+	public static int ordinal(byte card){
+		return card & FACE_MASK;
+	}
+	
+	/**
+	 * @param card packed card
+	 * @return the card's face
+	 */
+	public static Face getFace(byte card){
+		return faces[card & FACE_MASK];
+	}
+	
+	/**
+	 * @param card packed card
+	 * @return the card's rank ordinal (0 for ace)
+	 */
+	public static int rank(byte card){
+		return (card & FACE_MASK) % RANKS;
+	}
+	
+	/**
+	 * @param card packed card
+	 * @return the card's suit ordinal 
+	 */
+	public static int suit(byte card){
+		return (card & FACE_MASK) / RANKS;
+	}
+	
+	/**
+	 * @param card packed card
+	 * @return true if the card's suit is red (diamonds or hearts)
+	 */
+	public static boolean isRed(byte card){
+		int suit = suit(card);
+		return suit == 1 || suit == 2;
+	}
+	
+	/**
+	 * @param card packed card
+	 * @return true if the card is face up
+	 */
+	public static boolean isFaceUp(byte card){
+		return (card & FACE_UP) != 0;
+	}
+	
+	/**
+	 * @param card packed card
+	 * @param faceUp the faceUp to set
+	 * @return the packed card with the requested faceUp
+	 */
+	public static byte setFaceUp(byte card, boolean faceUp){
+		return (byte) (faceUp? card | FACE_UP : card & FACE_MASK);
+	}
+	
+	/**
+	 * @param card packed card
+	 * @return the flipped packed card
+	 */
+	public static byte flip(byte card){
+		return (byte) (card ^ FACE_UP);
+	}
+	
+	/**
+	 * get a read only {@link Card} for a packed card <br>
+	 * (cards are shared, calling {@code flip} or {@code setFaceUp} 
+	 * on them throws UnsupportedOperationException)
+	 * @param card packed card
+	 * @return the shared read only card
+	 */
+	public static Card toCard(byte card){
+		return cards[card];
+	}
+	
+	/**
+	 * card that can't be flipped, used as a shared view of packed cards
+	 */
+	private static final class ReadOnlyCard extends Card {
+
+		ReadOnlyCard(Face face, boolean faceUp) {
+			super(face, faceUp);
+		}
+		
+		@Override
+		public void setFaceUp(boolean faceUp) {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public void flip() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
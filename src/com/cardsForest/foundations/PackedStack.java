@@ -0,0 +1,244 @@
+package com.cardsForest.foundations;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+
+/**
+ * compact representation of a {@link Stack}'s cards 
+ * <p>
+ * cards are kept as {@link PackedCard} bytes in an array with a length field, 
+ * the first card is the bottom of the stack <br>
+ * capacity is fixed on creation (a full deck by default)
+ * <p>
+ * {@code asCards} supply a read only list view so that 
+ * code that reads {@link Card} objects (e.g. {@link com.cardsForest.logic.SequenceChecker})
+ * can use a packed stack without copying it
+ * 
+ * @see PackedCard
+ * @author Amit Portnoy
+ */
+public final class PackedStack {
+
+	/** default capacity (a full deck) */
+	public static final int DECK_SIZE = 52;
+	
+	/** packed cards, only the first {@code length} are valid */
+	final byte[] cards;
+	/** number of cards in the stack */
+	int length;
+	
+	/** read only view (created on first request) */
+	private List<Card> view;
+	
+	/**
+	 * create a new empty stack that can hold a full deck
+	 */
+	public PackedStack(){
+		this(DECK_SIZE);
+	}
+	
+	/**
+	 * create a new empty stack 
+	 * @param capacity maximum number of cards
+	 */
+	public PackedStack(int capacity){
+		cards = new byte[capacity];
+		length = 0;
+	}
+	
+	/**
+	 * create a packed copy of a stack's cards
+	 * @param stack stack to copy
+	 * @return the new packed stack
+	 */
+	public static PackedStack of(Stack stack){
+		PackedStack packed = new PackedStack(Math.max(DECK_SIZE,stack.size()));
+		packed.copyFrom(stack.getCards());
+		return packed;
+	}
+	
+	/***********************/
+	/* service methods     */
+	/***********************/
+	
+	/**
+	 * @return number of cards in the stack
+	 */
+	public int size(){
+		return length;
+	}
+	
+	/**
+	 * @return true if this stack contains no cards
+	 */
+	public boolean isEmpty(){
+		return length == 0;
+	}
+	
+	/**
+	 * @param index index of the card (0 is the bottom card)
+	 * @return the packed card
+	 */
+	public byte get(int index){
+		if (index >= length){
+			throw new IndexOutOfBoundsException();
+		}
+		return cards[index];
+	}
+	
+	/**
+	 * caller should check not empty
+	 * @return the packed top card
+	 */
+	public byte getTop(){
+		return cards[length-1];
+	}
+	
+	/**
+	 * @return a <b>read only</b> view of the cards 
+	 * (cards are shared, see {@link PackedCard#toCard})
+	 */
+	public List<Card> asCards(){
+		if (view == null){
+			view = new CardsView();
+		}
+		return view;
+	}
+	
+	/***********************/
+	/* stack operations    */
+	/***********************/
+	
+	/**
+	 * @param card packed card to put on top of the stack
+	 */
+	public void push(byte card){
+		cards[length++] = card;
+	}
+	
+	/**
+	 * caller should check not empty
+	 * @return the removed packed top card
+	 */
+	public byte pop(){
+		return cards[--length];
+	}
+	
+	/**
+	 * moves cards from the top of this stack to the top of another 
+	 * (keeping their order)
+	 * @param dst destination stack to move to
+	 * @param num number of cards to move
+	 */
+	public void moveTo(PackedStack dst, int num){
+		if (num > length){
+			throw new IndexOutOfBoundsException();
+		}
+		length -= num;
+		System.arraycopy(cards, length, dst.cards, dst.length, num);
+		dst.length += num;
+	}
+	
+	/**
+	 * flips the top card in the stack (if any)
+	 */
+	public void flipTop(){
+		if (length > 0){
+			cards[length-1] = PackedCard.flip(cards[length-1]);
+		}
+	}
+	
+	/**
+	 * sets all the cards in the stack to face up or face down
+	 * @param faceUp all cards in the stack will be set to this parameter value
+	 */
+	public void setAllFaceUp(boolean faceUp){
+		for (int i = 0; i < length; i++){
+			cards[i] = PackedCard.setFaceUp(cards[i], faceUp);
+		}
+	}
+	
+	/**
+	 * shuffle the cards <br>
+	 * same permutation as {@code Collections.shuffle} of a list 
+	 * of the same cards with the same generator 
+	 * @param random the generator to use
+	 */
+	public void shuffle(Random random){
+		for (int i = length; i > 1; i--){
+			swap(i-1, random.nextInt(i));
+		}
+	}
+	
+	/**
+	 * undo a {@code shuffle} that used a {@link SplitMixRandom}
+	 * @param state the generator's state before the shuffle
+	 */
+	public void unshuffle(long state){
+		//the shuffle's draws in reverse order
+		for (int i = 2; i <= length; i++){
+			long drawState = state + (length - i + 1) * SplitMixRandom.GAMMA;
+			swap(i-1, SplitMixRandom.bounded(SplitMixRandom.mix32(drawState), i));
+		}
+	}
+	
+	/**
+	 * @param i index of a card
+	 * @param j index of a card
+	 */
+	private void swap(int i, int j){
+		byte temp = cards[i];
+		cards[i] = cards[j];
+		cards[j] = temp;
+	}
+	
+	/**
+	 * remove all the cards from the stack
+	 */
+	public void clear(){
+		length = 0;
+	}
+	
+	/**
+	 * replace this stack's cards with another's
+	 * @param other stack to copy
+	 */
+	public void copyFrom(PackedStack other){
+		System.arraycopy(other.cards, 0, cards, 0, other.length);
+		length = other.length;
+	}
+	
+	/**
+	 * replace this stack's cards with packed copies of the given cards
+	 * @param list cards to copy
+	 */
+	public void copyFrom(List<Card> list){
+		length = 0;
+		for (Card card : list){
+			push(PackedCard.pack(card));
+		}
+	}
+	
+	@Override
+	public String toString(){
+		return asCards().toString();
+	}
+	
+	/**
+	 * read only list view of the packed cards
+	 */
+	private final class CardsView extends AbstractList<Card> implements RandomAccess{
+
+		@Override
+		public Card get(int index) {
+			return PackedCard.toCard(PackedStack.this.get(index));
+		}
+
+		@Override
+		public int size() {
+			return length;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.cardsForest.foundations;
+
+import java.util.Random;
+
+/**
+ * fast, splittable random number generator (SplitMix64) 
+ * <p>
+ * used for all shuffles so that a game can be reproduced from its seed
+ * (see {@link com.cardsForest.logic.GameLogic#deal(long)}) <br>
+ * the whole state is a single long that advances by {@code GAMMA} on every draw,
+ * and {@code nextInt(bound)} always uses exactly one draw, 
+ * so a shuffle can be replayed (or undone) from the state it started with
+ * <p>
+ * an instance is not thread safe (unlike {@link Random}), 
+ * each thread should use its own instance (see {@code split})
+ * 
+ * @author Amit Portnoy
+ */
+public class SplitMixRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	/** state increment of each draw */
+	public static final long GAMMA = 0x9E3779B97F4A7C15L;
+	
+	/** current state */
+	private long state;
+	
+	/**
+	 * @param seed the initial state
+	 */
+	public SplitMixRandom(long seed){
+		super(seed);
+		state = seed;
+	}
+	
+	/**
+	 * @return a new generator seeded from this one 
+	 * (to be used by another thread)
+	 */
+	public SplitMixRandom split(){
+		return new SplitMixRandom(nextLong());
+	}
+	
+	/**
+	 * @return the current state
+	 */
+	public long getState(){
+		return state;
+	}
+	
+	/**
+	 * @param state the state to set
+	 */
+	public void setState(long state){
+		this.state = state;
+	}
+	
+	@Override
+	public void setSeed(long seed){
+		//called by Random's constructor
+		state = seed;
+	}
+	
+	@Override
+	protected int next(int bits){
+		return nextInt() >>> (32 - bits);
+	}
+	
+	@Override
+	public int nextInt(){
+		return mix32(state += GAMMA);
+	}
+	
+	@Override
+	public long nextLong(){
+		return mix64(state += GAMMA);
+	}
+	
+	/**
+	 * single draw, see {@code bounded}
+	 */
+	@Override
+	public int nextInt(int bound){
+		if (bound <= 0){
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		return bounded(nextInt(), bound);
+	}
+	
+	/**
+	 * map a random int to a range (multiply and shift, no rejection)
+	 * @param random random int
+	 * @param bound upper bound (exclusive)
+	 * @return value between 0 (inclusive) and bound (exclusive)
+	 */
+	public static int bounded(int random, int bound){
+		return (int)(((random & 0xFFFFFFFFL) * bound) >>> 32);
+	}
+	
+	/**
+	 * @param state state after a draw
+	 * @return the int drawn
+	 */
+	public static int mix32(long state){
+		long z = state;
+		z = (z ^ (z >>> 33)) * 0x62A9D9ED799705F5L;
+		return (int)(((z ^ (z >>> 28)) * 0xCB24D0A5C88C35B3L) >>> 32);
+	}
+	
+	/**
+	 * @param state state after a draw
+	 * @return the long drawn
+	 */
+	public static long mix64(long state){
+		long z = state;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
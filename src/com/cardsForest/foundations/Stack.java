@@ -6,12 +6,15 @@ package com.cardsForest.foundations;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import com.cardsForest.glue.GameContext;
 import com.cardsForest.glue.OperationManager;
 import com.cardsForest.glue.StackSprite;
 import com.cardsForest.logic.Behavior;
+import com.cardsForest.logic.SequenceChecker;
 import static com.cardsForest.glue.OperationManager.*;
 
 /**
@@ -23,11 +26,17 @@ import static com.cardsForest.glue.OperationManager.*;
  * assign them with {@link Behavior} objects
  * and {@link StackSprite} objects.
  * <p>
+ * every stack belongs to a single game's {@link GameContext}
+ * <p>
  * logical action done on stack are delegated to {@link Operation} object
- * and are sent to {@link OperationManager} which perform the operation 
+ * and are sent to the context's {@link OperationManager} which perform the operation 
  * in two phases:<br>
  * 1. logical, changes done on stack's cards <br>
  * 2. display, changes on the sprite's cards; it can be mirror of the first phase or more complex (e.g. animation)
+ * <p>
+ * if the behavior has a run checker (see {@link Behavior#getRunChecker()}) the stack
+ * keeps the length of the valid run ending at each of its cards, 
+ * updated by the logic phase of every operation (only the changed cards are checked)
  * 
  * @see com.cardsForest.logic.GameLogic
  * @see OperationManager
@@ -44,17 +53,31 @@ public class Stack {
 	Behavior behavior;
 	StackSprite sprite;
 	
+	/** rules of the stack's runs ({@code null} if runs are not kept) */
+	private SequenceChecker runChecker;
+	/** length of the face up valid run ending at each card (only kept with a run checker) */
+	private int[] runs;
+	
+	/** the game this stack belongs to */
+	final GameContext context;
+	
 	/**
 	 * Stack objects will be created using static factory methods,
 	 * hence the private constructor
+	 * @param context the game this stack belongs to 
+	 * (if the context is headless the stack will have no sprite)
 	 */
-	private Stack(){
+	private Stack(GameContext context){
+		if (context == null){
+			throw new NullPointerException();
+		}
+		this.context = context;
 		cards = new ArrayList<Card>();
 		unmodifiableCards = Collections.unmodifiableList(cards);
 		
 		//get default behavior and display
 		behavior = Behavior.getDefault();
-		sprite = new StackSprite(0.5,0.5,false);
+		sprite = (context.isHeadless())? null : new StackSprite(0.5,0.5,false);
 	}
 
 	
@@ -68,7 +91,7 @@ public class Stack {
 	 * @param p the position of the clicked card within the stack
 	 */
 	public void click(Point p){
-		behavior.click(this,sprite.getCardIndex(p));
+		behavior.click(this,getCardIndex(p));
 	}
 
 	/**
@@ -76,24 +99,52 @@ public class Stack {
 	 * @param p the position of the clicked card within the stack
 	 */
 	public void doubleClick(Point p) {
-		behavior.doubleClick(this,sprite.getCardIndex(p));
+		behavior.doubleClick(this,getCardIndex(p));
 	}
 	
 	/**
 	 * delegates to {@link StackSprite}'s inBounds
 	 * @param p
-	 * @return whatever {@link StackSprite} returns
+	 * @return whatever {@link StackSprite} returns (always false when headless)
 	 */
 	public boolean inBounds(Point p) {
-		return sprite.inBounds(p);
+		return sprite != null && sprite.inBounds(p);
 	}
 
 	/**
-	 * delegates to {@link StackSprite}'s draw
+	 * delegates to {@link StackSprite}'s draw (does nothing when headless)
 	 * @param g
 	 */
 	public void draw(Graphics g){
-		sprite.draw(g,false);
+		if (sprite != null){
+			sprite.draw(g,false);
+		}
+	}
+	
+	/**
+	 * delegates to {@link StackSprite}'s drawBase (does nothing when headless)
+	 * @param g
+	 */
+	public void drawBase(Graphics g){
+		if (sprite != null){
+			sprite.drawBase(g);
+		}
+	}
+	
+	/**
+	 * delegates to {@link StackSprite}'s getCardIndex <br>
+	 * a headless stack has no positions so the upper card index is used
+	 * <p>
+	 * the sprite may still be displaying earlier operations (their motions are still drawn)
+	 * so the index is limited to the stack's cards
+	 * @param p point in question
+	 * @return the index of the card at the point (-1 if cards is empty)
+	 */
+	private int getCardIndex(Point p){
+		if (sprite == null){
+			return cards.size()-1;
+		}
+		return Math.min(sprite.getCardIndex(p), cards.size()-1);
 	}
 
 	
@@ -105,7 +156,7 @@ public class Stack {
 	 * shuffle the cards
 	 */
 	public void shuffle(){
-		OperationManager.add(new ShuffleOperation(this));
+		context.getOperationManager().add(new ShuffleOperation(this));
 	}
 	
 	/**
@@ -114,7 +165,7 @@ public class Stack {
 	 * @param num number of cards to move
 	 */
 	public void moveTo(Stack dst, int num, boolean immediate){
-		OperationManager.add(new MoveToOperation(this, dst, num, immediate));
+		context.getOperationManager().add(new MoveToOperation(this, dst, num, immediate));
 	}
 	
 	/**
@@ -128,7 +179,7 @@ public class Stack {
 	 * flips the top card in the stack
 	 */
 	public void flipTop(){
-		OperationManager.add(new FlipTopOperation(this));
+		context.getOperationManager().add(new FlipTopOperation(this));
 	}
 	
 	/**
@@ -136,14 +187,14 @@ public class Stack {
 	 * @param faceUp all cards in the stack will be set to this parameter value
 	 */
 	public void setAllFaceUp(boolean faceUp){
-		OperationManager.add(new SetAllFaceUpOperation(this,faceUp));
+		context.getOperationManager().add(new SetAllFaceUpOperation(this,faceUp));
 	}
 	
 	/**
 	 * remove all the cards from the stack
 	 */
 	public void clear() {
-		OperationManager.add(new ClearOperation(this));
+		context.getOperationManager().add(new ClearOperation(this));
 	}
 	
 	/*********************************************************/
@@ -159,11 +210,27 @@ public class Stack {
 	}
 
 	/**
-	 * @return the sprite
+	 * @return the game this stack belongs to
+	 */
+	public GameContext getContext() {
+		return context;
+	}
+
+	/**
+	 * @return the sprite ({@code null} if the stack is headless)
 	 */
 	public StackSprite getSprite() {
 		return sprite;
 	}
+	
+	/**
+	 * a headless stack has no {@link StackSprite} and
+	 * its operations have no display phase
+	 * @return true if this stack has no display state
+	 */
+	public boolean isHeadless() {
+		return sprite == null;
+	}
 
 	/**
 	 * @param sprite the sprite to set
@@ -192,6 +259,55 @@ public class Stack {
 		}
 		
 		this.behavior = behavior;
+		runChecker = behavior.getRunChecker();
+		runs = (runChecker == null)? null : new int[Math.max(cards.size(), PackedStack.DECK_SIZE)];
+		updateRuns(0);
+	}
+	
+	/**
+	 * O(1), the run is kept up to date by the operations 
+	 * (only kept if the behavior has a run checker)
+	 * @return number of face up cards at the top of the stack 
+	 * that form a valid sequence by the behavior's run checker
+	 * @throws IllegalStateException if the stack does not keep runs
+	 */
+	public int getRunLength(){
+		if (runChecker == null){
+			throw new IllegalStateException("stack does not keep runs");
+		}
+		return cards.isEmpty()? 0 : runs[cards.size()-1];
+	}
+	
+	/**
+	 * @param index index of a card
+	 * @return true if the cards from index to the top are a valid run (see {@code getRunLength})
+	 */
+	public boolean isInRun(int index){
+		return index >= 0 && index < cards.size() && cards.size() - index <= getRunLength();
+	}
+	
+	/**
+	 * update the runs ending at the cards from a given index to the top
+	 * @param from index of the first changed card
+	 */
+	private void updateRuns(int from){
+		if (runChecker == null){
+			return;
+		}
+		int size = cards.size();
+		if (runs.length < size){
+			runs = Arrays.copyOf(runs, Math.max(size, runs.length * 2));
+		}
+		for (int i = Math.max(from, 0); i < size; i++){
+			Card card = cards.get(i);
+			if (!card.isFaceUp()){
+				runs[i] = 0;
+			} else if (i > 0 && runs[i-1] > 0 && runChecker.checkSequential(cards.get(i-1), card)){
+				runs[i] = runs[i-1] + 1;
+			} else {
+				runs[i] = 1;
+			}
+		}
 	}
 	
     /**
@@ -226,28 +342,35 @@ public class Stack {
 
 	/**
 	 * adds a card to the stack 
-	 * and a copy of the stack to the sprite
+	 * and a copy of the stack to the sprite (if not headless)
 	 * @param card the card to add
 	 */
 	protected void add(Card card){
 		cards.add(card);
-		sprite.cards.add(new Card(card));
+		updateRuns(cards.size()-1);
+		if (sprite != null){
+			sprite.cards.add(new Card(card));
+		}
 	}
 	
 	/**
 	 * Stack factory method
+	 * @param context the game the stack belongs to 
+	 * (the stack is created without a sprite if the context is headless)
 	 * @return a new empty Stack
 	 */
-	public static Stack newEmptyStack() {
-		return new Stack();
+	public static Stack newEmptyStack(GameContext context) {
+		return new Stack(context);
 	}
 	
 	/**
 	 * Stack factory method
+	 * @param context the game the stack belongs to 
+	 * (the stack is created without a sprite if the context is headless)
 	 * @return a new stack contain 52 {@link Card} objects
 	 */
-	public static Stack newDeck() {
-		Stack newDeck = newEmptyStack();
+	public static Stack newDeck(GameContext context) {
+		Stack newDeck = newEmptyStack(context);
 		
 		for (Face face : Face.values()){
 			newDeck.add(new Card(face,false));
@@ -266,6 +389,9 @@ public class Stack {
 	 * operation is done in two phases:<br>
 	 * the first logic phase is done immediately,
 	 * the second display phase is done after all logic is done
+	 * <p>
+	 * every operation can be inverted after its logic phase 
+	 * (used by {@link OperationManager}'s undo / redo)
 	 * 
 	 * @see OperationManager
 	 */
@@ -273,6 +399,8 @@ public class Stack {
 		protected Stack src;
 		protected List<Card> cards;
 		protected StackSprite sprite;
+		/** the game the operation is performed in */
+		protected GameContext context;
 		
 		/**
 		 * initialize the new operation object
@@ -282,6 +410,14 @@ public class Stack {
 			this.src = src;
 			this.cards = src.cards;
 			this.sprite = src.getSprite();
+			this.context = src.context;
+		}
+		
+		/**
+		 * @return the stack on which the operation is performed
+		 */
+		public Stack getStack(){
+			return src;
 		}
 		
 		/**
@@ -290,18 +426,66 @@ public class Stack {
 		 */
 		abstract protected void action(List<Card> cards);
 		
+		/**
+		 * called before the logic phase, 
+		 * save here anything the inverse operation will need
+		 */
+		protected void beforeLogic(){
+			//nothing to save by default
+		}
+		
 		/**
 		 * do the logical part of the operation (done immediately)
 		 */
 		final public void doLogic(){
+			beforeLogic();
 			action(cards);
+			afterLogic();
 		}
 		
+		/**
+		 * called after the logic phase, by default updates all of src's runs
+		 * (subclasses that change only the top of a stack should update only that)
+		 */
+		protected void afterLogic(){
+			updateRuns(src, 0);
+		}
+		
+		/**
+		 * update the runs of a stack after its cards were changed 
+		 * (does nothing if the stack does not keep runs)
+		 * @param stack the changed stack
+		 * @param from index of the first changed card
+		 */
+		protected static void updateRuns(Stack stack, int from){
+			stack.updateRuns(from);
+		}
+		
+		/**
+		 * create the operation that undoes this one 
+		 * (only valid after the logic phase, when the stacks are
+		 * in the state this operation left them)
+		 * @return the inverse operation (not yet performed)
+		 */
+		public abstract Operation inverse();
+		
 		/**
 		 * do the display part of the operation (done after all logic is done)
 		 */
 		public void doDisplay(){
-			action(sprite.cards);
+			if (sprite != null){
+				action(sprite.cards);
+				sprite.updateBounds();
+			}
+		}
+		
+		/**
+		 * operations on headless stacks have no display phase, 
+		 * {@link OperationManager} does not log them
+		 * @return true if this operation has a display phase
+		 */
+		public boolean hasDisplay(){
+			return sprite != null;
 		}
 		
 		/**
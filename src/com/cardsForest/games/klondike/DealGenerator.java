@@ -0,0 +1,164 @@
+package com.cardsForest.games.klondike;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.cardsForest.foundations.Face;
+import com.cardsForest.foundations.PackedCard;
+import com.cardsForest.foundations.PackedStack;
+import com.cardsForest.foundations.SplitMixRandom;
+
+/**
+ * generates numbered {@link Klondike} deals without creating a game
+ * <p>
+ * the deal number is the seed of the game's generator, 
+ * so a generated deal is the same as the layout of {@code Klondike.deal(dealNumber)} <br>
+ * a deal is written as the 52 packed cards of the shuffled stock 
+ * (bottom first, the tableau is dealt from the top), 
+ * or played into a {@link KlondikePosition}
+ * <p>
+ * a generator is not thread safe, each thread should use its own generator 
+ * (the static {@code generate} does that for a {@link ForkJoinPool})
+ * 
+ * @see com.cardsForest.logic.GameLogic#deal(long)
+ * @author Amit Portnoy
+ */
+public class DealGenerator {
+
+	/** number of bytes written for each deal */
+	public static final int DEAL_SIZE = PackedStack.DECK_SIZE;
+	/** deals generated by each task of the parallel generate */
+	static final int CHUNK = 0x1000;
+	
+	/** the deck before the shuffle (same order as {@code Stack.newDeck}) */
+	private static final PackedStack NEW_DECK = new PackedStack();
+	static {
+		for (Face face : Face.values()){
+			NEW_DECK.push(PackedCard.pack(face, false));
+		}
+	}
+	
+	/** generator of the current deal */
+	private final SplitMixRandom random;
+	/** the shuffled deck */
+	private final PackedStack deck;
+	
+	/**
+	 * create a new generator
+	 */
+	public DealGenerator(){
+		random = new SplitMixRandom(0);
+		deck = new PackedStack();
+	}
+	
+	/**
+	 * shuffle the deck of a deal
+	 * @param dealNumber the deal number
+	 * @return the shuffled deck (reused by the next call)
+	 */
+	private PackedStack shuffle(long dealNumber){
+		random.setSeed(dealNumber);
+		deck.copyFrom(NEW_DECK);
+		deck.shuffle(random);
+		return deck;
+	}
+	
+	/**
+	 * write the shuffled stock of a deal
+	 * @param dealNumber the deal number
+	 * @param out array to write to
+	 * @param offset index of the deal's first byte in out
+	 */
+	public void generate(long dealNumber, byte[] out, int offset){
+		PackedStack shuffled = shuffle(dealNumber);
+		for (int i = 0; i < DEAL_SIZE; i++){
+			out[offset + i] = shuffled.get(i);
+		}
+	}
+	
+	/**
+	 * write consecutive deals
+	 * @param firstDeal number of the first deal
+	 * @param count number of deals
+	 * @param out array to write to (at least {@code count * DEAL_SIZE} bytes)
+	 */
+	public void generate(long firstDeal, int count, byte[] out){
+		for (int i = 0; i < count; i++){
+			generate(firstDeal + i, out, i * DEAL_SIZE);
+		}
+	}
+	
+	/**
+	 * replace a position with the layout of a deal
+	 * (including the generator's state, as in the game after the deal)
+	 * @param dealNumber the deal number
+	 * @param position the position to replace
+	 */
+	public void deal(long dealNumber, KlondikePosition position){
+		for (PackedStack pile : position.piles){
+			pile.clear();
+		}
+		PackedStack stock = position.piles[KlondikePosition.STOCK];
+		stock.copyFrom(shuffle(dealNumber));
+		position.random.setState(random.getState());
+		
+		//see Klondike.deal
+		for (int i = 0; i < KlondikePosition.TABLEAUS; i++){
+			stock.moveTo(position.piles[KlondikePosition.TABLEAU + i], 1);
+			position.piles[KlondikePosition.TABLEAU + i].flipTop();
+			for (int j = i + 1; j < KlondikePosition.TABLEAUS; j++){
+				stock.moveTo(position.piles[KlondikePosition.TABLEAU + j], 1);
+			}
+		}
+	}
+	
+	/**
+	 * write consecutive deals using all of a pool's workers 
+	 * (each task uses its own generator)
+	 * @param firstDeal number of the first deal
+	 * @param count number of deals
+	 * @param out array to write to (at least {@code count * DEAL_SIZE} bytes)
+	 * @param pool the pool to run on
+	 */
+	public static void generate(long firstDeal, int count, byte[] out, ForkJoinPool pool){
+		pool.invoke(new GenerateTask(firstDeal, 0, count, out));
+	}
+	
+	/**
+	 * writes a range of deals, splits it while it is larger than a chunk
+	 */
+	private static final class GenerateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		
+		/** number of the first deal of the whole run */
+		private final long firstDeal;
+		/** first deal of the range (relative to firstDeal) */
+		private final int from;
+		/** end of the range (exclusive, relative to firstDeal) */
+		private final int to;
+		/** array to write to */
+		private final byte[] out;
+		
+		GenerateTask(long firstDeal, int from, int to, byte[] out){
+			this.firstDeal = firstDeal;
+			this.from = from;
+			this.to = to;
+			this.out = out;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from <= CHUNK){
+				DealGenerator generator = new DealGenerator();
+				for (int i = from; i < to; i++){
+					generator.generate(firstDeal + i, out, i * DEAL_SIZE);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new GenerateTask(firstDeal, from, middle, out),
+					new GenerateTask(firstDeal, middle, to, out));
+		}
+	}
+}
@@ -5,7 +5,7 @@ package com.cardsForest.games.klondike;
 
 import com.cardsForest.foundations.Card;
 import com.cardsForest.foundations.Stack;
-import com.cardsForest.glue.Selection;
+import com.cardsForest.glue.GameContext;
 import com.cardsForest.logic.Behavior;
 import com.cardsForest.logic.SequenceChecker;
 
@@ -15,14 +15,17 @@ import com.cardsForest.logic.SequenceChecker;
  */
 public class FoundationBehavior extends Behavior {
 
-	static SequenceChecker sc = new FoundationSequenceChecker();
+	static final SequenceChecker sc = new FoundationSequenceChecker().compile();
+	
+	public FoundationBehavior(GameContext context){
+		super(context);
+	}
 	
 	/* (non-Javadoc)
 	 * @see com.cardsForest.foundations.Behavior#Click(com.cardsForest.foundations.Stack, int)
 	 */
 	@Override
 	public void click(Stack stack, int cardIndex) {
-		Selection selection = Selection.get();
 		if ((selection.isAvailable()) 
 				&& (selection.stack.size() == 1)) {
 			boolean legal = false;
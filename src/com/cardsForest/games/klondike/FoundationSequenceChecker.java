@@ -5,6 +5,7 @@ package com.cardsForest.games.klondike;
 
 import com.cardsForest.foundations.Card;
 import com.cardsForest.foundations.Face;
+import com.cardsForest.foundations.PackedCard;
 import com.cardsForest.logic.SequenceChecker;
 
 /**
@@ -41,5 +42,18 @@ public class FoundationSequenceChecker extends SequenceChecker {
 			return false;			
 		}
 	}
+	
+	@Override
+	public boolean checkSequential(byte card1, byte card2) {
+		//same suit and next rank means next ordinal within the suit
+		return PackedCard.suit(card1) == PackedCard.suit(card2)
+				&&
+				PackedCard.ordinal(card1)+1 == PackedCard.ordinal(card2);
+	}
+	
+	@Override
+	public boolean checkStarter(byte card) {
+		return PackedCard.rank(card) == Face.Rank.ACE.ordinal();
+	}
 
 }
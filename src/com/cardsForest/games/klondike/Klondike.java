@@ -5,7 +5,11 @@ package com.cardsForest.games.klondike;
 
 
 import com.cardsForest.foundations.Stack;
+import com.cardsForest.foundations.Stack.Operation;
 import com.cardsForest.foundations.Face.Rank;
+import com.cardsForest.glue.GameContext;
+import com.cardsForest.glue.OperationManager.FlipTopOperation;
+import com.cardsForest.glue.OperationManager.MoveToOperation;
 import com.cardsForest.logic.Behavior;
 import com.cardsForest.logic.GameLogic;
 
@@ -20,6 +24,22 @@ public class Klondike extends GameLogic {
 	Stack foundation[] = null;
 	
 	public Klondike(){
+		this(false);
+	}
+	
+	/**
+	 * @param headless true to create a game without display state
+	 */
+	public Klondike(boolean headless){
+		super(headless);
+		createStacks();
+	}
+	
+	/**
+	 * @param context the game's context (must not be shared with another game)
+	 */
+	public Klondike(GameContext context){
+		super(context);
 		createStacks();
 	}
 	
@@ -28,38 +48,33 @@ public class Klondike extends GameLogic {
 		foundation = new Stack[4];
 		
 		//waste
-		Stack waste = Stack.newEmptyStack();
-		waste.getSprite().setRelativePos(0.2,0.1);
-		waste.setBehavior(new WasteBehavior(foundation));
+		Stack waste = newStack(0.2,0.1,false);
+		waste.setBehavior(new WasteBehavior(context, foundation));
 		stacks.add(waste);
 		
 		//stock
-		stock = Stack.newEmptyStack();
-		stock.getSprite().setRelativePos(0.1,0.1);
-		stock.setBehavior(new StockBehavior(waste));
+		stock = newStack(0.1,0.1,false);
+		stock.setBehavior(new StockBehavior(context, waste));
 		stacks.add(stock);
 		
 		
 		
-		Behavior b = new FoundationBehavior();		
+		Behavior b = new FoundationBehavior(context);		
 
 		for(int i = 0; i < foundation.length; i++){
-			Stack s = Stack.newEmptyStack();
-			s.getSprite().setRelativePos(0.6+0.1*i,0.1);
+			Stack s = newStack(0.6+0.1*i,0.1,false);
 			s.setBehavior(b);
 			foundation[i] = s;
 			stacks.add(s);
 		}
 		
-		b = new TableauBehavior(foundation);
+		b = new TableauBehavior(context, foundation);
 		
 		//tableau
 		Stack tableau[] = new Stack[7];
 		for(int i = 0; i < tableau.length; i++){
 			Stack s = tableau[i];
-			s = Stack.newEmptyStack();
-			s.getSprite().setRelativePos(0.3+0.1*i,0.4);
-			s.getSprite().spread = true;
+			s = newStack(0.3+0.1*i,0.4,true);
 			s.setBehavior(b);
 			stacks.add(s);
 		}
@@ -67,6 +82,34 @@ public class Klondike extends GameLogic {
 		
 	}
 	
+	/**
+	 * play a move listed by {@link KlondikeMoves} for the game's current position
+	 * (same result as the clicks that make this move) <br>
+	 * a pending selection is canceled first, 
+	 * the move can be undone with {@code undo}
+	 * 
+	 * @param move the move to play
+	 * @see KlondikePosition
+	 */
+	public void play(int move){
+		if (selection.isAvailable()){
+			selection.selectEnd(null);
+		}
+		
+		if (KlondikeMoves.isStockMove(move)){
+			//draw or recycle
+			stock.getBehavior().click(stock, stock.size()-1);
+		} else {
+			Stack src = stacks.get(KlondikeMoves.getSource(move));
+			src.moveTo(stacks.get(KlondikeMoves.getDestination(move)), KlondikeMoves.getCount(move));
+			if (KlondikeMoves.isFlip(move)){
+				src.flipTop();
+			}
+		}
+		//the move is a single undoable action
+		context.getOperationManager().endAction();
+	}
+	
 	/* (non-Javadoc)
 	 * @see com.cardsForest.logic.GameLogic#checkGameDone()
 	 */
@@ -85,18 +128,22 @@ public class Klondike extends GameLogic {
 	 */
 	@Override
 	public void deal() {
-		Stack offscreen = Stack.newDeck();
+		Stack offscreen = newDeck();
 		offscreen.moveTo(stock, offscreen.size(),true);
 
 		stock.shuffle();
 		
+		//28 moves and 7 flips, added as one group
+		Operation[] operations = new Operation[28 + 7];
+		int n = 0;
 		for(int i=0;i<7;i++){
-			stock.moveTo(stacks.get(6+i), 1);
-			stacks.get(6+i).flipTop();
+			operations[n++] = new MoveToOperation(stock, stacks.get(6+i), 1, false);
+			operations[n++] = new FlipTopOperation(stacks.get(6+i));
 			for(int j = i+1;j<7;j++){
-				stock.moveTo(stacks.get(6+j), 1);
+				operations[n++] = new MoveToOperation(stock, stacks.get(6+j), 1, false);
 			}
 		}
+		context.getOperationManager().add(operations);
 	}
 
 }
@@ -0,0 +1,243 @@
+package com.cardsForest.games.klondike;
+
+import static com.cardsForest.games.klondike.KlondikePosition.*;
+
+import com.cardsForest.foundations.PackedCard;
+import com.cardsForest.foundations.PackedStack;
+import com.cardsForest.logic.SequenceChecker;
+
+/**
+ * lists the legal moves of a {@link KlondikePosition} 
+ * <p>
+ * a move is encoded in a single int: <br>
+ * bits 0-3 - source pile index <br>
+ * bits 4-7 - destination pile index <br>
+ * bits 8-13 - number of cards moved <br>
+ * bit 14 - set if the source's new top card is flipped after the move
+ * <p>
+ * the rules are the same rules {@link TableauBehavior}, {@link WasteBehavior},
+ * {@link FoundationBehavior} and {@link StockBehavior} apply to clicks
+ * (using the same sequence checkers) <br>
+ * empty foundations and empty tableau piles are interchangeable, so 
+ * a card is only moved to the first empty pile of a kind
+ * <p>
+ * static class, {@code generate} fills a caller supplied buffer and never allocates
+ * 
+ * @author Amit Portnoy
+ */
+public final class KlondikeMoves {
+
+	/** upper bound on the number of legal moves in a position <br>
+	 * (buffers of this size can hold the moves of any position) */
+	public static final int MAX_MOVES = 
+			TABLEAUS * PackedCard.RANKS * (TABLEAUS - 1) //tableau runs to tableau
+			+ TABLEAUS //tableau to foundation
+			+ TABLEAUS + 1 //waste to tableau or foundation
+			+ 1; //stock
+	
+	private static final int DST_SHIFT = 4;
+	private static final int COUNT_SHIFT = 8;
+	private static final int PILE_MASK = 0xF;
+	private static final int COUNT_MASK = 0x3F;
+	private static final int FLIP = 1 << 14;
+	
+	/** tableau rules */
+	private static final SequenceChecker tableau = TableauBehavior.sc;
+	/** foundation rules */
+	private static final SequenceChecker foundation = FoundationBehavior.sc;
+	
+	/**
+	 *  static class behavior:
+	 * @throws UnsupportedOperationException on creation
+	 */
+	private KlondikeMoves(){throw new UnsupportedOperationException();}
+	
+	/**
+	 * encode a move
+	 * @param src source pile index
+	 * @param dst destination pile index
+	 * @param count number of cards moved
+	 * @param flip true if the source's top card is flipped after the move
+	 * @return the encoded move
+	 */
+	public static int encode(int src, int dst, int count, boolean flip){
+		return src | (dst << DST_SHIFT) | (count << COUNT_SHIFT) | (flip? FLIP : 0);
+	}
+	
+	/**
+	 * @param move encoded move
+	 * @return the source pile index
+	 */
+	public static int getSource(int move){
+		return move & PILE_MASK;
+	}
+	
+	/**
+	 * @param move encoded move
+	 * @return the destination pile index
+	 */
+	public static int getDestination(int move){
+		return (move >>> DST_SHIFT) & PILE_MASK;
+	}
+	
+	/**
+	 * @param move encoded move
+	 * @return number of cards moved
+	 */
+	public static int getCount(int move){
+		return (move >>> COUNT_SHIFT) & COUNT_MASK;
+	}
+	
+	/**
+	 * @param move encoded move
+	 * @return true if the source's top card is flipped after the move
+	 */
+	public static boolean isFlip(int move){
+		return (move & FLIP) != 0;
+	}
+	
+	/**
+	 * @param move encoded move
+	 * @return true if the move is a stock click (draw or recycle)
+	 */
+	public static boolean isStockMove(int move){
+		return getSource(move) == STOCK || getDestination(move) == STOCK;
+	}
+	
+	/**
+	 * list all the legal moves of a position
+	 * @param position the position 
+	 * @param moves buffer to write the moves to (see {@code MAX_MOVES})
+	 * @return number of moves written
+	 */
+	public static int generate(KlondikePosition position, int[] moves){
+		return generate(position, moves, 0);
+	}
+	
+	/**
+	 * list all the legal moves of a position
+	 * @param position the position 
+	 * @param moves buffer to write the moves to
+	 * (must have at least {@code MAX_MOVES} entries from offset)
+	 * @param offset index of the first entry to write
+	 * @return number of moves written
+	 */
+	public static int generate(KlondikePosition position, int[] moves, int offset){
+		PackedStack[] piles = position.piles;
+		int n = offset;
+		
+		//waste to foundation or tableau
+		PackedStack waste = piles[WASTE];
+		if (!waste.isEmpty()){
+			byte card = waste.getTop();
+			int f = findFoundation(piles, card);
+			if (f >= 0){
+				moves[n++] = encode(WASTE, f, 1, false);
+			}
+			n = addTableauDestinations(piles, card, WASTE, 1, false, moves, n);
+		}
+		
+		//tableau to foundation or tableau
+		for (int t = TABLEAU; t < PILES; t++){
+			PackedStack pile = piles[t];
+			int size = pile.size();
+			if (size == 0 || !PackedCard.isFaceUp(pile.getTop())){
+				continue;
+			}
+			
+			//find the start of the face up valid run
+			int start = size-1;
+			while (start > 0 
+					&& PackedCard.isFaceUp(pile.get(start-1))
+					&& tableau.checkSequential(pile.get(start-1), pile.get(start))){
+				start--;
+			}
+			
+			//top card to foundation
+			byte top = pile.getTop();
+			int f = findFoundation(piles, top);
+			if (f >= 0){
+				moves[n++] = encode(t, f, 1, exposesFaceDown(pile, 1));
+			}
+			
+			//every part of the run to other tableau piles
+			for (int i = start; i < size; i++){
+				int count = size - i;
+				n = addTableauDestinations(piles, pile.get(i), t, count, exposesFaceDown(pile, count), moves, n);
+			}
+		}
+		
+		//stock: draw or recycle
+		if (!piles[STOCK].isEmpty()){
+			moves[n++] = encode(STOCK, WASTE, 1, false);
+		} else if (!waste.isEmpty()){
+			moves[n++] = encode(WASTE, STOCK, waste.size(), false);
+		}
+		
+		return n - offset;
+	}
+	
+	/**
+	 * find a foundation a card can be moved to
+	 * @return the foundation's pile index or -1 if there is none
+	 */
+	private static int findFoundation(PackedStack[] piles, byte card){
+		for (int f = FOUNDATION; f < TABLEAU; f++){
+			PackedStack pile = piles[f];
+			if (pile.isEmpty()? 
+					foundation.checkStarter(card) 
+					: foundation.checkSequential(pile.getTop(), card)){
+				return f;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * add moves of cards starting with {@code card} to every tableau pile that accepts them
+	 * @return the new number of moves
+	 */
+	private static int addTableauDestinations(PackedStack[] piles, byte card, 
+			int src, int count, boolean flip, int[] moves, int n){
+		boolean addedEmpty = false;
+		for (int t = TABLEAU; t < PILES; t++){
+			if (t == src){
+				continue;
+			}
+			PackedStack pile = piles[t];
+			if (pile.isEmpty()){
+				if (!addedEmpty && tableau.checkStarter(card)){
+					addedEmpty = true;
+					moves[n++] = encode(src, t, count, flip);
+				}
+			} else if (tableau.checkSequential(pile.getTop(), card)){
+				moves[n++] = encode(src, t, count, flip);
+			}
+		}
+		return n;
+	}
+	
+	/**
+	 * @return true if moving count cards from pile leaves a face down top card
+	 */
+	private static boolean exposesFaceDown(PackedStack pile, int count){
+		int size = pile.size();
+		return size > count && !PackedCard.isFaceUp(pile.get(size-count-1));
+	}
+	
+	/**
+	 * @param move encoded move
+	 * @return readable description of the move
+	 */
+	public static String toString(int move){
+		int src = getSource(move);
+		int dst = getDestination(move);
+		if (src == STOCK){
+			return "draw";
+		}
+		if (dst == STOCK){
+			return "recycle";
+		}
+		return getCount(move) + " from " + src + " to " + dst + (isFlip(move)? " (flip)" : "");
+	}
+}
@@ -0,0 +1,188 @@
+package com.cardsForest.games.klondike;
+
+import com.cardsForest.foundations.PackedCard;
+import com.cardsForest.foundations.PackedStack;
+import com.cardsForest.foundations.SplitMixRandom;
+
+/**
+ * compact snapshot of a {@link Klondike} game 
+ * <p>
+ * holds a {@link PackedStack} for each of the game's stacks, 
+ * pile indexes are the same as the indexes of {@link Klondike}'s stacks <br>
+ * moves listed by {@link KlondikeMoves} can be played and undone on a position
+ * without allocating
+ * <p>
+ * the position also holds the state of the game's generator, 
+ * so a recycle shuffles the waste exactly like the game would
+ * 
+ * @see KlondikeMoves
+ * @author Amit Portnoy
+ */
+public class KlondikePosition {
+
+	/** waste pile index */
+	public static final int WASTE = 0;
+	/** stock pile index */
+	public static final int STOCK = 1;
+	/** first foundation pile index */
+	public static final int FOUNDATION = 2;
+	/** number of foundation piles */
+	public static final int FOUNDATIONS = 4;
+	/** first tableau pile index */
+	public static final int TABLEAU = FOUNDATION + FOUNDATIONS;
+	/** number of tableau piles */
+	public static final int TABLEAUS = 7;
+	/** number of piles */
+	public static final int PILES = TABLEAU + TABLEAUS;
+	
+	/** the piles of the position */
+	final PackedStack[] piles;
+	/** generator used by recycles (same state as the game's generator) */
+	final SplitMixRandom random;
+	
+	/**
+	 * create a new empty position
+	 */
+	public KlondikePosition(){
+		piles = new PackedStack[PILES];
+		for (int i = 0; i < PILES; i++){
+			piles[i] = new PackedStack();
+		}
+		random = new SplitMixRandom(0);
+	}
+	
+	/**
+	 * create a snapshot of a game
+	 * @param game the game to copy
+	 * @return the new position
+	 */
+	public static KlondikePosition of(Klondike game){
+		KlondikePosition position = new KlondikePosition();
+		position.copyFrom(game);
+		return position;
+	}
+	
+	/**
+	 * replace this position with the current state of a game
+	 * <p>
+	 * cards held by the game's selection are considered 
+	 * to still be on the selection's source stack
+	 * @param game the game to copy
+	 */
+	public void copyFrom(Klondike game){
+		for (int i = 0; i < PILES; i++){
+			piles[i].copyFrom(game.getStacks().get(i).getCards());
+		}
+		if (game.selection.isAvailable()){
+			PackedStack src = piles[game.getStacks().indexOf(game.selection.src)];
+			PackedStack selected = PackedStack.of(game.selection.stack);
+			selected.moveTo(src, selected.size());
+		}
+		random.setState(game.getContext().getRandom().getState());
+	}
+	
+	/**
+	 * replace this position with another
+	 * @param other position to copy
+	 */
+	public void copyFrom(KlondikePosition other){
+		for (int i = 0; i < PILES; i++){
+			piles[i].copyFrom(other.piles[i]);
+		}
+		random.setState(other.random.getState());
+	}
+	
+	/**
+	 * @param index pile index
+	 * @return the pile (modifying it will modify the position)
+	 */
+	public PackedStack getPile(int index){
+		return piles[index];
+	}
+	
+	/**
+	 * @return state of the generator used by the next recycle
+	 */
+	public long getRandomState(){
+		return random.getState();
+	}
+	
+	/**
+	 * @param state state of the generator used by the next recycle
+	 */
+	public void setRandomState(long state){
+		random.setState(state);
+	}
+	
+	/**
+	 * @return true if all cards are on the foundations
+	 */
+	public boolean isWon(){
+		for (int i = FOUNDATION; i < TABLEAU; i++){
+			if (piles[i].size() != PackedCard.RANKS){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * play a move listed by {@link KlondikeMoves#generate} for this position
+	 * @param move the move to play
+	 */
+	public void play(int move){
+		int src = KlondikeMoves.getSource(move);
+		int dst = KlondikeMoves.getDestination(move);
+		
+		if (src == STOCK){
+			//draw
+			piles[STOCK].flipTop();
+			piles[STOCK].moveTo(piles[WASTE], 1);
+		} else if (dst == STOCK){
+			//recycle (see StockBehavior)
+			piles[WASTE].setAllFaceUp(false);
+			piles[WASTE].shuffle(random);
+			piles[WASTE].moveTo(piles[STOCK], piles[WASTE].size());
+		} else {
+			piles[src].moveTo(piles[dst], KlondikeMoves.getCount(move));
+			if (KlondikeMoves.isFlip(move)){
+				piles[src].flipTop();
+			}
+		}
+	}
+	
+	/**
+	 * undo a move that was the last move played on this position
+	 * @param move the move to undo
+	 */
+	public void undo(int move){
+		int src = KlondikeMoves.getSource(move);
+		int dst = KlondikeMoves.getDestination(move);
+		
+		if (src == STOCK){
+			piles[WASTE].moveTo(piles[STOCK], 1);
+			piles[STOCK].flipTop();
+		} else if (dst == STOCK){
+			//the shuffle used one draw for each card but the first
+			int count = KlondikeMoves.getCount(move);
+			random.setState(random.getState() - Math.max(count - 1, 0) * SplitMixRandom.GAMMA);
+			piles[STOCK].unshuffle(random.getState());
+			piles[STOCK].moveTo(piles[WASTE], count);
+			piles[WASTE].setAllFaceUp(true);
+		} else {
+			if (KlondikeMoves.isFlip(move)){
+				piles[src].flipTop();
+			}
+			piles[dst].moveTo(piles[src], KlondikeMoves.getCount(move));
+		}
+	}
+	
+	@Override
+	public String toString(){
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < PILES; i++){
+			sb.append(i).append(": ").append(piles[i]).append('\n');
+		}
+		return sb.toString();
+	}
+}
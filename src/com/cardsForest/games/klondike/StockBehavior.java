@@ -5,7 +5,10 @@ package com.cardsForest.games.klondike;
 
 
 import com.cardsForest.foundations.Stack;
-import com.cardsForest.glue.Selection;
+import com.cardsForest.glue.GameContext;
+import com.cardsForest.glue.OperationManager.MoveToOperation;
+import com.cardsForest.glue.OperationManager.SetAllFaceUpOperation;
+import com.cardsForest.glue.OperationManager.ShuffleOperation;
 import com.cardsForest.logic.Behavior;
 
 /**
@@ -16,21 +19,23 @@ public class StockBehavior extends Behavior {
 
 	private Stack waste;
 	
-	public StockBehavior(Stack waste){
+	public StockBehavior(GameContext context, Stack waste){
+		super(context);
 		this.waste = waste;
 	}
 	
 	@Override
 	public void click(Stack stack, int cardIndex) {
-		if (!Selection.get().isAvailable()){
+		if (!selection.isAvailable()){
 			if (! stack.isEmpty()){
 				stack.flipTop();
 				stack.moveTo(waste,1);
 			} else {
 				if (! waste.isEmpty()){
-					waste.setAllFaceUp(false);					
-					waste.shuffle();
-					waste.moveTo(stack,waste.size());
+					context.getOperationManager().add(
+							new SetAllFaceUpOperation(waste, false),
+							new ShuffleOperation(waste),
+							new MoveToOperation(waste, stack, waste.size(), false));
 				}
 			}
 		}
@@ -3,12 +3,9 @@
  */
 package com.cardsForest.games.klondike;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.cardsForest.foundations.Card;
 import com.cardsForest.foundations.Stack;
-import com.cardsForest.glue.Selection;
+import com.cardsForest.glue.GameContext;
 import com.cardsForest.logic.Behavior;
 import com.cardsForest.logic.SequenceChecker;
 
@@ -18,26 +15,35 @@ import com.cardsForest.logic.SequenceChecker;
  */
 public class TableauBehavior extends Behavior {
 
-	static SequenceChecker sc = new TableauSequenceChecker();
+	static final SequenceChecker sc = new TableauSequenceChecker().compile();
 	
 	Stack[] foundation;
 	
-	public TableauBehavior(Stack[] foundation){
+	public TableauBehavior(GameContext context, Stack[] foundation){
+		super(context);
 		this.foundation = foundation;
 	}
 	
+	/**
+	 * tableau stacks keep their run, so selecting and dropping are O(1) checks
+	 */
+	@Override
+	public SequenceChecker getRunChecker() {
+		return sc;
+	}
+	
 	@Override
 	public void click(Stack stack, int cardIndex) {
-		Selection selection = Selection.get();
 		if (selection.isAvailable()){
+			//the selection is a valid run 
+			//(checked when selected from a tableau, other stacks select a single card)
+			//so only its first card has to be checked
+			Card first = selection.stack.getCards().get(0);
 			boolean legal = false;
 			if (stack.isEmpty()){
-				legal = sc.checkSequance(selection.stack.getCards(), true);
+				legal = sc.checkStarter(first);
 			}else{
-				List<Card> temp = new ArrayList<Card>();
-				temp.add(stack.getCards().get(stack.size()-1));
-				temp.addAll(selection.stack.getCards());				
-				legal = sc.checkSequance(temp, false);
+				legal = sc.checkSequential(stack.getTop(), first);
 			}
 
 			if (legal){
@@ -51,19 +57,15 @@ public class TableauBehavior extends Behavior {
 				selection.selectEnd(stack);
 			}
 		}else{
-			if (!stack.isEmpty() && stack.getCards().get(cardIndex).isFaceUp()){
-				List<Card> view = stack.getCards().subList(cardIndex, stack.size());
-				if (sc.checkSequance(view, false)){
-					selection.select(stack, cardIndex);
-				}
+			if (stack.isInRun(cardIndex)){
+				selection.select(stack, cardIndex);
 			}
 		}
 	}
 	
 	@Override
 	public void doubleClick(Stack stack, int cardIndex) {
-		Selection selection = Selection.get();
-		SequenceChecker sc = new FoundationSequenceChecker();
+		SequenceChecker sc = FoundationBehavior.sc;
 		if (selection.stack.size() == 1){
 			for (Stack f : foundation){
 				if (f.isEmpty()){
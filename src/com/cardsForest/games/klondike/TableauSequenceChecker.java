@@ -5,6 +5,7 @@ package com.cardsForest.games.klondike;
 
 import com.cardsForest.foundations.Card;
 import com.cardsForest.foundations.Face;
+import com.cardsForest.foundations.PackedCard;
 import com.cardsForest.logic.SequenceChecker;
 
 /**
@@ -41,5 +42,17 @@ public class TableauSequenceChecker extends SequenceChecker {
 			return false;
 		}
 	}
+	
+	@Override
+	public boolean checkSequential(byte card1, byte card2) {
+		return PackedCard.isRed(card1) != PackedCard.isRed(card2)
+				&&
+				PackedCard.rank(card1)-1 == PackedCard.rank(card2);
+	}
+	
+	@Override
+	public boolean checkStarter(byte card) {
+		return PackedCard.rank(card) == Face.Rank.KING.ordinal();
+	}
 
 }
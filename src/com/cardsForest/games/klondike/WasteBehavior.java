@@ -4,7 +4,7 @@
 package com.cardsForest.games.klondike;
 
 import com.cardsForest.foundations.Stack;
-import com.cardsForest.glue.Selection;
+import com.cardsForest.glue.GameContext;
 import com.cardsForest.logic.Behavior;
 import com.cardsForest.logic.SequenceChecker;
 
@@ -17,7 +17,8 @@ public class WasteBehavior extends Behavior {
 	
 	Stack[] foundation;
 	
-	public WasteBehavior(Stack[] foundation){
+	public WasteBehavior(GameContext context, Stack[] foundation){
+		super(context);
 		this.foundation = foundation;
 	}
 	
@@ -26,16 +27,15 @@ public class WasteBehavior extends Behavior {
 	 */
 	@Override
 	public void click(Stack stack, int cardIndex) {
-		if ((!Selection.get().isAvailable()) 
+		if ((!selection.isAvailable()) 
 				&& (! stack.isEmpty())) {
-			Selection.get().select(stack,stack.size()-1);
+			selection.select(stack,stack.size()-1);
 		}
 	}
 	
 	@Override
 	public void doubleClick(Stack stack, int cardIndex) {
-		Selection selection = Selection.get();
-		SequenceChecker sc = new FoundationSequenceChecker();
+		SequenceChecker sc = FoundationBehavior.sc;
 		if (selection.stack.size() == 1){
 			for (Stack f : foundation){
 				if (f.isEmpty()){
@@ -0,0 +1,241 @@
+package com.cardsForest.games.klondike.batch;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.cardsForest.games.klondike.Klondike;
+import com.cardsForest.games.klondike.KlondikePosition;
+import com.cardsForest.games.klondike.solver.KlondikeSolver;
+
+/**
+ * plays a range of numbered deals with an automatic player, headless, on all cores
+ * <p>
+ * every worker thread has its own headless {@link Klondike} game and {@link Policy},
+ * and takes the next deal number until the range is done <br>
+ * each game's outcome is written to a {@link RecordWriter} (if any) as soon as it ends
+ * and added to the totals (win rate, moves per game and time per game)
+ * <p>
+ * command line: <br>
+ * {@code BatchRunner firstDeal count [greedy|solver] [threads] [output.csv|output.bin]}
+ * 
+ * @see com.cardsForest.logic.GameLogic#deal(long)
+ * @author Amit Portnoy
+ */
+public class BatchRunner {
+
+	/** a game is stopped (and lost) after this many moves */
+	public static final int MAX_MOVES = 2000;
+	
+	/** number of the first deal */
+	private final long firstDeal;
+	/** number of deals to play */
+	private final long count;
+	/** name of the policy (see {@code newPolicy}) */
+	private final String policy;
+	/** number of worker threads */
+	private final int threads;
+	
+	/** index of the next deal to play (relative to firstDeal) */
+	private final AtomicLong next;
+	/** number of games played */
+	private final AtomicLong games;
+	/** number of games won */
+	private final AtomicLong wins;
+	/** total moves of all games */
+	private final AtomicLong moves;
+	/** total time of all games (nanoseconds) */
+	private final AtomicLong nanos;
+	/** first error of a worker (a record writer's or a game's, stops all workers) */
+	private final AtomicReference<Throwable> error;
+	
+	/**
+	 * @param firstDeal number of the first deal
+	 * @param count number of deals to play
+	 * @param policy "greedy" or "solver"
+	 * @param threads number of worker threads
+	 */
+	public BatchRunner(long firstDeal, long count, String policy, int threads){
+		if (!isPolicy(policy)){
+			//fail early on unknown names (the workers create the policies)
+			throw new IllegalArgumentException("unknown policy: " + policy);
+		}
+		if (count < 0 || threads < 1){
+			throw new IllegalArgumentException("count must not be negative and threads must be positive");
+		}
+		this.firstDeal = firstDeal;
+		this.count = count;
+		this.policy = policy;
+		this.threads = threads;
+		
+		next = new AtomicLong();
+		games = new AtomicLong();
+		wins = new AtomicLong();
+		moves = new AtomicLong();
+		nanos = new AtomicLong();
+		error = new AtomicReference<Throwable>();
+	}
+	
+	/**
+	 * @param name a policy name
+	 * @return true if {@code newPolicy} knows the name
+	 */
+	public static boolean isPolicy(String name){
+		return name.equals("greedy") || name.equals("solver");
+	}
+	
+	/**
+	 * @param name "greedy" or "solver"
+	 * @return a new policy (for a single worker)
+	 */
+	public static Policy newPolicy(String name){
+		if (name.equals("greedy")){
+			return new GreedyPolicy();
+		}
+		if (name.equals("solver")){
+			return new SolverPolicy(new KlondikeSolver());
+		}
+		throw new IllegalArgumentException("unknown policy: " + name);
+	}
+	
+	/**
+	 * play all the deals
+	 * @param writer receives each game's record (may be null)
+	 * @throws IOException if writing a record failed
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 * @throws IllegalStateException if a worker failed (e.g. a policy threw), 
+	 * the cause is the worker's exception
+	 */
+	public void run(final RecordWriter writer) throws IOException, InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++){
+			pool.execute(new Runnable(){
+				public void run(){
+					work(writer);
+				}
+			});
+		}
+		pool.shutdown();
+		while (!pool.awaitTermination(1, TimeUnit.SECONDS)){
+			//wait for the workers
+		}
+		Throwable e = error.get();
+		if (e instanceof IOException){
+			throw (IOException) e;
+		}
+		if (e instanceof Error){
+			throw (Error) e;
+		}
+		if (e != null){
+			throw new IllegalStateException("a worker failed", e);
+		}
+	}
+	
+	/**
+	 * worker loop: play deals until the range is done
+	 */
+	private void work(RecordWriter writer){
+		try {
+			Klondike game = new Klondike(true);
+			KlondikePosition position = new KlondikePosition();
+			Policy player = newPolicy(policy);
+			
+			long i;
+			while ((i = next.getAndIncrement()) < count && error.get() == null){
+				GameRecord record = play(game, position, player, firstDeal + i);
+				
+				games.incrementAndGet();
+				if (record.won){
+					wins.incrementAndGet();
+				}
+				moves.addAndGet(record.moves);
+				nanos.addAndGet(record.nanos);
+				
+				if (writer != null){
+					writer.write(record);
+				}
+			}
+		} catch (Throwable e) {
+			//stop the other workers, run() reports it
+			error.compareAndSet(null, e);
+		}
+	}
+	
+	/**
+	 * play a single deal
+	 * @param game the worker's game
+	 * @param position the worker's snapshot of the game
+	 * @param player the worker's policy
+	 * @param deal the deal number
+	 * @return the game's outcome
+	 */
+	static GameRecord play(Klondike game, KlondikePosition position, Policy player, long deal){
+		long start = System.nanoTime();
+		game.redeal(deal);
+		position.copyFrom(game);
+		player.start(position);
+		
+		int played = 0;
+		int move;
+		while (played < MAX_MOVES && (move = player.nextMove(position)) != -1){
+			game.play(move);
+			position.play(move);
+			played++;
+		}
+		return new GameRecord(deal, game.checkGameDone(), played, System.nanoTime() - start);
+	}
+	
+	/**
+	 * @return number of games played so far
+	 */
+	public long getGames(){
+		return games.get();
+	}
+	
+	/**
+	 * @return number of games won so far
+	 */
+	public long getWins(){
+		return wins.get();
+	}
+	
+	/**
+	 * @return totals of the games played so far
+	 */
+	public String summary(){
+		long played = Math.max(games.get(), 1);
+		return String.format("games: %d, wins: %d (%.2f%%), moves per game: %.1f, ms per game: %.3f",
+				games.get(), wins.get(), 100.0 * wins.get() / played,
+				(double) moves.get() / played, nanos.get() / 1e6 / played);
+	}
+	
+	/**
+	 * command line entry point (see class header)
+	 * @param args firstDeal count [greedy|solver] [threads] [output.csv|output.bin]
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 2){
+			System.err.println("usage: BatchRunner firstDeal count [greedy|solver] [threads] [output.csv|output.bin]");
+			System.exit(1);
+		}
+		long firstDeal = Long.parseLong(args[0]);
+		long count = Long.parseLong(args[1]);
+		String policy = args.length > 2? args[2] : "greedy";
+		int threads = args.length > 3? 
+				Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		
+		BatchRunner runner = new BatchRunner(firstDeal, count, policy, threads);
+		RecordWriter writer = args.length > 4? RecordWriter.open(args[4]) : null;
+		try {
+			runner.run(writer);
+		} finally {
+			if (writer != null){
+				writer.close();
+			}
+		}
+		System.out.println(runner.summary());
+	}
+}
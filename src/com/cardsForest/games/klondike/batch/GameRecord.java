@@ -0,0 +1,77 @@
+package com.cardsForest.games.klondike.batch;
+
+/**
+ * outcome of one game played by the {@link BatchRunner}
+ * 
+ * @author Amit Portnoy
+ */
+public class GameRecord {
+
+	/** size of a record in the binary format */
+	public static final int BINARY_SIZE = 8 + 1 + 4 + 8;
+	/** header line of the CSV format */
+	public static final String CSV_HEADER = "deal,won,moves,nanos";
+	
+	/** the deal number */
+	final long deal;
+	/** true if the game was won */
+	final boolean won;
+	/** number of moves played */
+	final int moves;
+	/** time spent on the game (nanoseconds) */
+	final long nanos;
+	
+	/**
+	 * @param deal the deal number
+	 * @param won true if the game was won
+	 * @param moves number of moves played
+	 * @param nanos time spent on the game (nanoseconds)
+	 */
+	public GameRecord(long deal, boolean won, int moves, long nanos) {
+		this.deal = deal;
+		this.won = won;
+		this.moves = moves;
+		this.nanos = nanos;
+	}
+
+	/**
+	 * @return the deal number
+	 */
+	public long getDeal() {
+		return deal;
+	}
+
+	/**
+	 * @return true if the game was won
+	 */
+	public boolean isWon() {
+		return won;
+	}
+
+	/**
+	 * @return number of moves played
+	 */
+	public int getMoves() {
+		return moves;
+	}
+
+	/**
+	 * @return time spent on the game (nanoseconds)
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+	
+	/**
+	 * @return the record as a CSV line (see {@code CSV_HEADER})
+	 */
+	public String toCsv(){
+		return deal + "," + (won? 1 : 0) + "," + moves + "," + nanos;
+	}
+	
+	@Override
+	public String toString(){
+		return "deal #" + deal + (won? " won" : " lost") + " in " + moves + " moves, " 
+				+ (nanos / 1000) + " us";
+	}
+}
@@ -0,0 +1,97 @@
+package com.cardsForest.games.klondike.batch;
+
+import static com.cardsForest.games.klondike.KlondikePosition.*;
+
+import com.cardsForest.foundations.PackedStack;
+import com.cardsForest.games.klondike.KlondikeMoves;
+import com.cardsForest.games.klondike.KlondikePosition;
+
+/**
+ * plays the best looking move without searching
+ * <p>
+ * priorities: to a foundation, tableau move that flips a card, 
+ * waste to tableau, tableau move that empties a pile (not onto an empty pile),
+ * then the stock <br>
+ * moves between tableau piles that don't uncover anything are never played 
+ * (they could be played back and forth forever), 
+ * the policy gives up after a pass over the stock with no other move
+ * 
+ * @author Amit Portnoy
+ */
+public class GreedyPolicy implements Policy {
+
+	/** the moves of the current position */
+	private final int[] moves;
+	/** true if a move other than a draw was played since the last recycle */
+	private boolean progress;
+	/** true if the stock was recycled at least once */
+	private boolean recycled;
+	
+	/**
+	 * create a new greedy policy
+	 */
+	public GreedyPolicy(){
+		moves = new int[KlondikeMoves.MAX_MOVES];
+	}
+	
+	@Override
+	public void start(KlondikePosition position) {
+		progress = false;
+		recycled = false;
+	}
+
+	@Override
+	public int nextMove(KlondikePosition position) {
+		int n = KlondikeMoves.generate(position, moves);
+		int best = -1;
+		int bestScore = 0;
+		for (int i = 0; i < n; i++){
+			int score = score(position, moves[i]);
+			if (score > bestScore){
+				best = moves[i];
+				bestScore = score;
+			}
+		}
+		if (best == -1){
+			return -1;
+		}
+		
+		if (KlondikeMoves.getDestination(best) == STOCK){
+			if (recycled && !progress){
+				//a whole pass with nothing to play
+				return -1;
+			}
+			recycled = true;
+			progress = false;
+		} else if (KlondikeMoves.getSource(best) != STOCK){
+			progress = true;
+		}
+		return best;
+	}
+	
+	/**
+	 * @return how good a move is (0 means never play it)
+	 */
+	private static int score(KlondikePosition position, int move){
+		int src = KlondikeMoves.getSource(move);
+		int dst = KlondikeMoves.getDestination(move);
+		if (src == STOCK || dst == STOCK){
+			return 1;
+		}
+		if (dst < TABLEAU){
+			return 6;
+		}
+		if (KlondikeMoves.isFlip(move)){
+			return 5;
+		}
+		if (src == WASTE){
+			return 4;
+		}
+		PackedStack srcPile = position.getPile(src);
+		if (KlondikeMoves.getCount(move) == srcPile.size() 
+				&& !position.getPile(dst).isEmpty()){
+			return 3;
+		}
+		return 0;
+	}
+}
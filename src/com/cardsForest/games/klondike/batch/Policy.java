@@ -0,0 +1,27 @@
+package com.cardsForest.games.klondike.batch;
+
+import com.cardsForest.games.klondike.KlondikePosition;
+
+/**
+ * automatic player used by the {@link BatchRunner}
+ * <p>
+ * a policy chooses moves listed by {@link com.cardsForest.games.klondike.KlondikeMoves} 
+ * for a snapshot of the game, the runner plays them on the game <br>
+ * a policy is used by a single thread (each worker creates its own)
+ * 
+ * @author Amit Portnoy
+ */
+public interface Policy {
+
+	/**
+	 * called when a new game starts
+	 * @param position the dealt position 
+	 */
+	void start(KlondikePosition position);
+	
+	/**
+	 * @param position the current position (must not be modified)
+	 * @return the next move to play, or -1 to give up the game
+	 */
+	int nextMove(KlondikePosition position);
+}
@@ -0,0 +1,94 @@
+package com.cardsForest.games.klondike.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+
+/**
+ * writes {@link GameRecord}s to a file as they arrive (safe to share between threads)
+ * <p>
+ * two formats: <br>
+ * CSV - a header line (see {@code GameRecord.CSV_HEADER}) and a line per game <br>
+ * binary (file name ends with ".bin") - {@code GameRecord.BINARY_SIZE} bytes per game:
+ * deal (long), won (byte), moves (int), nanos (long), big endian
+ * <p>
+ * records are written in the order the games end (not in deal order)
+ * 
+ * @author Amit Portnoy
+ */
+public abstract class RecordWriter implements Closeable {
+
+	/**
+	 * @param fileName file to create
+	 * @return writer of the format matching the file name
+	 * @throws IOException if the file can't be created
+	 */
+	public static RecordWriter open(String fileName) throws IOException {
+		if (fileName.endsWith(".bin")){
+			return new BinaryWriter(fileName);
+		}
+		return new CsvWriter(fileName);
+	}
+	
+	/**
+	 * @param record the record to write
+	 * @throws IOException if writing failed
+	 */
+	public abstract void write(GameRecord record) throws IOException;
+	
+	/**
+	 * comma separated values
+	 */
+	private static final class CsvWriter extends RecordWriter {
+		
+		private final BufferedWriter out;
+		
+		CsvWriter(String fileName) throws IOException {
+			out = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(fileName), Charset.forName("US-ASCII")));
+			out.write(GameRecord.CSV_HEADER);
+			out.newLine();
+		}
+		
+		@Override
+		public synchronized void write(GameRecord record) throws IOException {
+			out.write(record.toCsv());
+			out.newLine();
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			out.close();
+		}
+	}
+	
+	/**
+	 * fixed size binary records
+	 */
+	private static final class BinaryWriter extends RecordWriter {
+		
+		private final DataOutputStream out;
+		
+		BinaryWriter(String fileName) throws IOException {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+		}
+		
+		@Override
+		public synchronized void write(GameRecord record) throws IOException {
+			out.writeLong(record.deal);
+			out.writeByte(record.won? 1 : 0);
+			out.writeInt(record.moves);
+			out.writeLong(record.nanos);
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.cardsForest.games.klondike.batch;
+
+import com.cardsForest.games.klondike.KlondikePosition;
+import com.cardsForest.games.klondike.solver.KlondikeSolver;
+import com.cardsForest.games.klondike.solver.SolverResult;
+
+/**
+ * searches the dealt position with a {@link KlondikeSolver} 
+ * and plays the winning line (gives up if none was found)
+ * 
+ * @author Amit Portnoy
+ */
+public class SolverPolicy implements Policy {
+
+	/** the solver (reused between games) */
+	private final KlondikeSolver solver;
+	/** the line to play */
+	private int[] line;
+	/** index of the next move in line */
+	private int next;
+	
+	/**
+	 * @param solver the solver to use (only by this policy)
+	 */
+	public SolverPolicy(KlondikeSolver solver){
+		if (solver == null){
+			throw new NullPointerException();
+		}
+		this.solver = solver;
+	}
+	
+	@Override
+	public void start(KlondikePosition position) {
+		SolverResult result = solver.solve(position);
+		line = result.getMoves();
+		next = 0;
+	}
+
+	@Override
+	public int nextMove(KlondikePosition position) {
+		return next < line.length? line[next++] : -1;
+	}
+}
@@ -0,0 +1,83 @@
+package com.cardsForest.games.klondike.solver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * thread safe {@link TranspositionTable} shared by the tasks of {@link ParallelKlondikeSolver}
+ * <p>
+ * same layout as {@link LongTranspositionTable} (open addressing, linear probing,
+ * 8 bytes per position), slots are claimed with compare and set
+ * 
+ * @author Amit Portnoy
+ */
+public class ConcurrentTranspositionTable implements TranspositionTable {
+
+	/** stored hashes, 0 marks an empty slot */
+	private final AtomicLongArray table;
+	/** table.length - 1 (length is a power of two) */
+	private final int mask;
+	/** number of stored hashes */
+	private final AtomicInteger size;
+	/** maximum number of stored hashes */
+	private final int maxSize;
+	
+	/**
+	 * create a new empty table
+	 * @param capacity number of positions the table should hold 
+	 * (rounded up so the table's length is a power of two)
+	 */
+	public ConcurrentTranspositionTable(int capacity){
+		int length = LongTranspositionTable.tableLength(capacity);
+		table = new AtomicLongArray(length);
+		mask = length - 1;
+		maxSize = (int)(length * LongTranspositionTable.MAX_LOAD);
+		size = new AtomicInteger();
+	}
+	
+	@Override
+	public boolean visit(long hash) {
+		if (hash == 0){
+			//0 marks empty slots
+			hash = 1;
+		}
+		int i = (int)(hash ^ (hash >>> 32)) & mask;
+		while (true){
+			long h = table.get(i);
+			if (h == hash){
+				return false;
+			}
+			if (h == 0){
+				if (size.get() >= maxSize){
+					//can't store, consider it as not visited
+					return true;
+				}
+				if (table.compareAndSet(i, 0, hash)){
+					size.incrementAndGet();
+					return true;
+				}
+				//lost the slot, check who took it
+				continue;
+			}
+			i = (i + 1) & mask;
+		}
+	}
+
+	@Override
+	public boolean isFull() {
+		return size.get() >= maxSize;
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < table.length(); i++){
+			table.set(i, 0);
+		}
+		size.set(0);
+	}
+}
@@ -0,0 +1,149 @@
+package com.cardsForest.games.klondike.solver;
+
+import static com.cardsForest.games.klondike.KlondikePosition.*;
+
+import com.cardsForest.foundations.PackedCard;
+import com.cardsForest.foundations.PackedStack;
+import com.cardsForest.games.klondike.Klondike;
+import com.cardsForest.games.klondike.KlondikeMoves;
+import com.cardsForest.games.klondike.KlondikePosition;
+
+/**
+ * searches for a winning line of a {@link Klondike} position
+ * <p>
+ * depth first search over the moves listed by {@link KlondikeMoves},
+ * moves are played and undone on a single {@link KlondikePosition} 
+ * (see {@link Search}) 
+ * and visited positions are kept in a {@link TranspositionTable} 
+ * (tableau piles and foundations are interchangeable, so positions that differ
+ * only by their order hash the same)
+ * <p>
+ * the search ends when a win is found, when the move tree is exhausted 
+ * or when the node, time or table budget runs out
+ * <p>
+ * the game shuffles the waste when the stock is recycled, the position holds the 
+ * state of the game's generator so the search follows recycles with the same shuffle
+ * (a recycle is followed only if a card was played from the waste since the previous 
+ * recycle, see {@link Search}). a position is unsolvable if no line that follows 
+ * this rule wins, only the budgets and the maximum line length make the result unknown
+ * <p>
+ * a solver can be reused for many searches but must only be used by one thread at a time
+ * 
+ * @author Amit Portnoy
+ */
+public class KlondikeSolver {
+
+	/** default maximum number of searched positions */
+	public static final long DEFAULT_NODE_BUDGET = 20000000L;
+	/** default maximum search time (milliseconds) */
+	public static final long DEFAULT_TIME_BUDGET = 10000L;
+	/** default number of positions the transposition table can hold */
+	public static final int DEFAULT_TABLE_CAPACITY = 1 << 21;
+	
+	/** maximum number of searched positions */
+	private final long nodeBudget;
+	/** maximum search time (milliseconds) */
+	private final long timeBudget;
+	/** visited positions */
+	private final TranspositionTable table;
+	
+	/** the search (reused between calls to solve) */
+	private final Search search;
+	
+	/**
+	 * create a solver with the default budgets
+	 */
+	public KlondikeSolver(){
+		this(DEFAULT_NODE_BUDGET, DEFAULT_TIME_BUDGET, 
+				new LongTranspositionTable(DEFAULT_TABLE_CAPACITY));
+	}
+	
+	/**
+	 * create a new solver
+	 * @param nodeBudget maximum number of searched positions
+	 * @param timeBudget maximum search time (milliseconds)
+	 * @param table table to keep visited positions in 
+	 */
+	public KlondikeSolver(long nodeBudget, long timeBudget, TranspositionTable table){
+		if (table == null){
+			throw new NullPointerException();
+		}
+		this.nodeBudget = nodeBudget;
+		this.timeBudget = timeBudget;
+		this.table = table;
+		
+		search = new Search();
+	}
+	
+	/**
+	 * search the current position of a game 
+	 * @param game the game to solve
+	 * @return the search result
+	 */
+	public SolverResult solve(Klondike game){
+		return solve(KlondikePosition.of(game));
+	}
+	
+	/**
+	 * search a position
+	 * @param start the position to solve (not modified)
+	 * @return the search result
+	 */
+	public SolverResult solve(KlondikePosition start){
+		SearchControl control = new SearchControl(table, nodeBudget, timeBudget);
+		search.reset(control, start, search.line, 0);
+		search.search(0);
+		search.flush();
+		return control.result();
+	}
+	
+	/**
+	 * hash a position, tableau piles and foundations are interchangeable 
+	 * so their order does not change the hash 
+	 * (the generator's state is part of the position)
+	 * @param position position to hash
+	 * @return the position's 64 bit hash
+	 */
+	public static long hash(KlondikePosition position){
+		long h = mix(hash(position.getPile(WASTE), 1)) 
+				^ mix(hash(position.getPile(STOCK), 2))
+				^ mix(position.getRandomState() + 5);
+		
+		//foundations: the height of each suit 
+		long heights = 0;
+		for (int f = FOUNDATION; f < TABLEAU; f++){
+			PackedStack pile = position.getPile(f);
+			if (!pile.isEmpty()){
+				heights |= ((long)pile.size()) << (PackedCard.suit(pile.get(0)) * 8);
+			}
+		}
+		h ^= mix(heights + 3);
+		
+		//tableau: sum is independent of order
+		long tableau = 0;
+		for (int t = TABLEAU; t < PILES; t++){
+			tableau += mix(hash(position.getPile(t), 4));
+		}
+		return h ^ mix(tableau);
+	}
+	
+	/**
+	 * @return ordered hash of a pile's cards 
+	 */
+	private static long hash(PackedStack pile, long seed){
+		long h = seed;
+		for (int i = 0; i < pile.size(); i++){
+			h = h * 0x9E3779B97F4A7C15L + (pile.get(i) & 0xFF) + 1;
+		}
+		return h;
+	}
+	
+	/**
+	 * 64 bit finalizer (from SplitMix64)
+	 */
+	static long mix(long z){
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,90 @@
+package com.cardsForest.games.klondike.solver;
+
+import java.util.Arrays;
+
+/**
+ * single threaded {@link TranspositionTable}
+ * <p>
+ * open addressing table of hashes with linear probing, 
+ * each stored position costs 8 bytes (plus load factor slack) <br>
+ * the table never grows, it is full when it reaches its maximum load
+ * 
+ * @author Amit Portnoy
+ */
+public class LongTranspositionTable implements TranspositionTable {
+
+	/** maximum load factor (filled slots / table length) */
+	static final double MAX_LOAD = 0.75;
+	
+	/** stored hashes, 0 marks an empty slot */
+	private final long[] table;
+	/** table.length - 1 (length is a power of two) */
+	private final int mask;
+	/** number of stored hashes */
+	private int size;
+	/** maximum number of stored hashes */
+	private final int maxSize;
+	
+	/**
+	 * create a new empty table
+	 * @param capacity number of positions the table should hold 
+	 * (rounded up so the table's length is a power of two)
+	 */
+	public LongTranspositionTable(int capacity){
+		int length = tableLength(capacity);
+		table = new long[length];
+		mask = length - 1;
+		maxSize = (int)(length * MAX_LOAD);
+		size = 0;
+	}
+	
+	/**
+	 * @param capacity number of positions a table should hold
+	 * @return length of a table that holds them (a power of two)
+	 */
+	static int tableLength(int capacity){
+		long length = Math.max(2L, Math.min(1 << 30, (long)(capacity / MAX_LOAD)));
+		return Integer.highestOneBit((int)length - 1) << 1;
+	}
+	
+	@Override
+	public boolean visit(long hash) {
+		if (hash == 0){
+			//0 marks empty slots
+			hash = 1;
+		}
+		int i = (int)(hash ^ (hash >>> 32)) & mask;
+		while (true){
+			long h = table[i];
+			if (h == hash){
+				return false;
+			}
+			if (h == 0){
+				if (size >= maxSize){
+					//can't store, consider it as not visited
+					return true;
+				}
+				table[i] = hash;
+				size++;
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+	}
+
+	@Override
+	public boolean isFull() {
+		return size >= maxSize;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(table, 0);
+		size = 0;
+	}
+}
@@ -0,0 +1,216 @@
+package com.cardsForest.games.klondike.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.cardsForest.games.klondike.KlondikePosition;
+
+/**
+ * runs {@link KlondikeSolver} searches on all cores
+ * <p>
+ * two modes are supported: <br>
+ * 1. {@code solve} - one position is searched by many {@link ForkJoinPool} tasks,
+ * the top of the move tree is split into subtasks (while workers are idle) and each
+ * task searches its subtree with a {@link Search}. all tasks share one 
+ * {@link ConcurrentTranspositionTable} and stop as soon as any of them finds a win <br>
+ * 2. {@code solveAll} - many positions are searched at once, one position per worker,
+ * each worker uses its own single threaded {@link KlondikeSolver} (best total throughput)
+ * <p>
+ * the table capacity is a total for all workers: {@code solve} shares one table of that
+ * capacity and {@code solveAll} gives each worker an equal part of it 
+ * (at least {@code MIN_WORKER_TABLE_CAPACITY}), a table costs about 
+ * 8 / {@link LongTranspositionTable#MAX_LOAD} bytes per position 
+ * (rounded up to a power of two), e.g. 32 MB for the default capacity
+ * <p>
+ * call {@code shutdown} when the solver is no longer needed
+ * 
+ * @author Amit Portnoy
+ */
+public class ParallelKlondikeSolver {
+
+	/** tasks are not split below this depth */
+	static final int MAX_SPLIT_DEPTH = 24;
+	/** tasks are split only while a worker has less queued tasks than this */
+	static final int SPLIT_SURPLUS = 2;
+	/** minimal capacity of a worker's table in {@code solveAll} */
+	static final int MIN_WORKER_TABLE_CAPACITY = 1 << 16;
+	
+	/** worker pool */
+	private final ForkJoinPool pool;
+	/** maximum number of searched positions (per position) */
+	private final long nodeBudget;
+	/** maximum search time (milliseconds, per position) */
+	private final long timeBudget;
+	/** number of positions the shared table can hold */
+	private final int tableCapacity;
+	/** number of positions each worker's table can hold (many positions mode) */
+	private final int workerTableCapacity;
+	/** shared table of the single position mode (created on first use) */
+	private ConcurrentTranspositionTable sharedTable;
+	
+	/** search of each worker thread (single position mode) */
+	private final ThreadLocal<Search> searches = new ThreadLocal<Search>(){
+		@Override
+		protected Search initialValue(){
+			return new Search();
+		}
+	};
+	/** solver of each worker thread (many positions mode) */
+	private final ThreadLocal<KlondikeSolver> solvers = new ThreadLocal<KlondikeSolver>(){
+		@Override
+		protected KlondikeSolver initialValue(){
+			return new KlondikeSolver(nodeBudget, timeBudget, 
+					new LongTranspositionTable(workerTableCapacity));
+		}
+	};
+	
+	/**
+	 * create a solver that uses all available cores with the default budgets
+	 */
+	public ParallelKlondikeSolver(){
+		this(Runtime.getRuntime().availableProcessors(),
+				KlondikeSolver.DEFAULT_NODE_BUDGET,
+				KlondikeSolver.DEFAULT_TIME_BUDGET,
+				KlondikeSolver.DEFAULT_TABLE_CAPACITY);
+	}
+	
+	/**
+	 * create a new solver
+	 * @param parallelism number of worker threads
+	 * @param nodeBudget maximum number of searched positions (per position)
+	 * @param timeBudget maximum search time (milliseconds, per position)
+	 * @param tableCapacity number of positions all transposition tables together can hold
+	 * ({@code solveAll} splits it between the workers' tables)
+	 */
+	public ParallelKlondikeSolver(int parallelism, long nodeBudget, long timeBudget, int tableCapacity){
+		pool = new ForkJoinPool(parallelism);
+		this.nodeBudget = nodeBudget;
+		this.timeBudget = timeBudget;
+		this.tableCapacity = tableCapacity;
+		workerTableCapacity = Math.max(MIN_WORKER_TABLE_CAPACITY, tableCapacity / parallelism);
+	}
+	
+	/**
+	 * search a single position using all workers
+	 * @param start the position to solve (not modified)
+	 * @return the search result
+	 */
+	public synchronized SolverResult solve(KlondikePosition start){
+		if (sharedTable == null){
+			sharedTable = new ConcurrentTranspositionTable(tableCapacity);
+		}
+		SearchControl control = new SearchControl(sharedTable, nodeBudget, timeBudget);
+		KlondikePosition position = new KlondikePosition();
+		position.copyFrom(start);
+		pool.invoke(new SearchTask(control, position, new int[0]));
+		return control.result();
+	}
+	
+	/**
+	 * search many positions at once, one position per worker 
+	 * @param positions the positions to solve (not modified)
+	 * @return the search results (same order as positions)
+	 */
+	public SolverResult[] solveAll(final KlondikePosition[] positions){
+		final SolverResult[] results = new SolverResult[positions.length];
+		final AtomicInteger next = new AtomicInteger();
+		
+		List<RecursiveAction> workers = new ArrayList<RecursiveAction>();
+		for (int i = 0; i < pool.getParallelism(); i++){
+			workers.add(new RecursiveAction(){
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					KlondikeSolver solver = solvers.get();
+					int i;
+					while ((i = next.getAndIncrement()) < positions.length){
+						results[i] = solver.solve(positions[i]);
+					}
+				}
+			});
+		}
+		for (RecursiveAction worker : workers){
+			pool.execute(worker);
+		}
+		for (RecursiveAction worker : workers){
+			worker.join();
+		}
+		return results;
+	}
+	
+	/**
+	 * stop the worker threads
+	 */
+	public void shutdown(){
+		pool.shutdown();
+	}
+	
+	/**
+	 * searches the subtree of one position,
+	 * splits it into subtasks while other workers are idle
+	 */
+	private final class SearchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		
+		/** shared budgets and outcome */
+		private final SearchControl control;
+		/** position to search (owned by this task) */
+		private final KlondikePosition position;
+		/** moves that led to the position */
+		private final int[] line;
+		
+		SearchTask(SearchControl control, KlondikePosition position, int[] line){
+			this.control = control;
+			this.position = position;
+			this.line = line;
+		}
+		
+		@Override
+		protected void compute() {
+			if (control.stop){
+				return;
+			}
+			if (position.isWon()){
+				control.solved(line);
+				return;
+			}
+			if (!control.table.visit(KlondikeSolver.hash(position))){
+				return;
+			}
+			
+			Search search = searches.get();
+			search.reset(control, position, line, line.length);
+			if (line.length >= MAX_SPLIT_DEPTH 
+					|| getSurplusQueuedTaskCount() >= SPLIT_SURPLUS){
+				//search the subtree on this thread
+				search.expand(0);
+				search.flush();
+				return;
+			}
+			
+			//split: a subtask for every move
+			int n = search.orderedMoves(0);
+			List<SearchTask> tasks = new ArrayList<SearchTask>(n);
+			for (int i = 0; i < n; i++){
+				int move = search.moveBuffer[i];
+				if (Search.isUselessRecycle(move, line, line.length)){
+					//pruned by the search's rules (see Search)
+					continue;
+				}
+				KlondikePosition child = new KlondikePosition();
+				child.copyFrom(position);
+				child.play(move);
+				int[] childLine = Arrays.copyOf(line, line.length + 1);
+				childLine[line.length] = move;
+				tasks.add(new SearchTask(control, child, childLine));
+			}
+			invokeAll(tasks);
+		}
+	}
+}
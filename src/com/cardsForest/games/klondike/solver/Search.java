@@ -0,0 +1,254 @@
+package com.cardsForest.games.klondike.solver;
+
+import static com.cardsForest.games.klondike.KlondikePosition.*;
+
+import java.util.Arrays;
+
+import com.cardsForest.foundations.PackedCard;
+import com.cardsForest.foundations.PackedStack;
+import com.cardsForest.games.klondike.KlondikeMoves;
+import com.cardsForest.games.klondike.KlondikePosition;
+
+/**
+ * single threaded depth first search used by the solvers
+ * <p>
+ * moves are played and undone on a single {@link KlondikePosition},
+ * budgets, visited positions and the outcome are kept in a {@link SearchControl}
+ * (which may be shared with searches on other threads) 
+ * <p>
+ * a search object keeps its buffers between searches, 
+ * it must only be used by one thread at a time
+ * 
+ * @see KlondikeSolver
+ * @see ParallelKlondikeSolver
+ * @author Amit Portnoy
+ */
+final class Search {
+
+	/** maximum length of a searched line */
+	static final int MAX_DEPTH = 1024;
+	/** number of nodes between two budget checks */
+	static final int CHECK_INTERVAL = 0x1000;
+	/** score of a safe move to a foundation */
+	private static final int SAFE = 100;
+	
+	/** the searched position (moves are played and undone on it) */
+	final KlondikePosition position;
+	/** moves of all the positions on the current line, 
+	 * each depth uses the entries after the previous depth's moves */
+	int[] moveBuffer;
+	/** the current line */
+	final int[] line;
+	/** length of the current line */
+	int depth;
+	
+	/** shared budgets and outcome */
+	private SearchControl control;
+	/** positions searched since the last budget check */
+	private int nodes;
+	
+	Search(){
+		position = new KlondikePosition();
+		moveBuffer = new int[KlondikeMoves.MAX_MOVES * 16];
+		line = new int[MAX_DEPTH];
+	}
+	
+	/**
+	 * prepare for a new search
+	 * @param control shared budgets and outcome
+	 * @param start position to search from
+	 * @param prefix moves that led to start (the start of any winning line)
+	 * @param prefixLength number of moves in prefix
+	 */
+	void reset(SearchControl control, KlondikePosition start, int[] prefix, int prefixLength){
+		this.control = control;
+		position.copyFrom(start);
+		System.arraycopy(prefix, 0, line, 0, prefixLength);
+		depth = prefixLength;
+		nodes = 0;
+	}
+	
+	/**
+	 * add the positions searched since the last check to the control
+	 */
+	void flush(){
+		control.addNodes(nodes);
+		nodes = 0;
+	}
+	
+	/**
+	 * search the current position
+	 * @param offset first free entry in the move buffer
+	 * @return true if a win was found
+	 */
+	boolean search(int offset){
+		if (position.isWon()){
+			control.solved(Arrays.copyOf(line, depth));
+			return true;
+		}
+		
+		if (++nodes == CHECK_INTERVAL){
+			flush();
+		}
+		if (control.stop){
+			return false;
+		}
+		if (!control.table.visit(KlondikeSolver.hash(position))){
+			//already searched
+			return false;
+		}
+		return expand(offset);
+	}
+	
+	/**
+	 * search all the moves of the current position 
+	 * (the position should already be marked as visited)
+	 * @param offset first free entry in the move buffer
+	 * @return true if a win was found
+	 */
+	boolean expand(int offset){
+		if (depth == MAX_DEPTH){
+			control.truncated = true;
+			return false;
+		}
+		
+		int n = orderedMoves(offset);
+		for (int i = offset; i < offset + n; i++){
+			int move = moveBuffer[i];
+			if (isUselessRecycle(move, line, depth)){
+				//pruned by the search's rules (not a truncation)
+				continue;
+			}
+			
+			position.play(move);
+			line[depth++] = move;
+			if (search(offset + n)){
+				return true;
+			}
+			depth--;
+			position.undo(move);
+			
+			if (control.stop){
+				return false;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * a recycle is not followed unless a card was played from the waste since 
+	 * the previous recycle (otherwise the recycle only shuffles the same stock again, 
+	 * the generator's state never repeats so the table can't stop such a line) <br>
+	 * this is a rule of the search, not a truncation: the stock and waste shrink 
+	 * between two recycles so every line ends and the whole tree can be searched
+	 * @param move move to check
+	 * @param line moves that led to the current position
+	 * @param depth length of line
+	 * @return true if the move is a useless recycle
+	 */
+	static boolean isUselessRecycle(int move, int[] line, int depth){
+		if (KlondikeMoves.getDestination(move) != STOCK){
+			return false;
+		}
+		for (int d = depth - 1; d >= 0; d--){
+			if (KlondikeMoves.getDestination(line[d]) == STOCK){
+				//previous recycle
+				return true;
+			}
+			if (KlondikeMoves.getSource(line[d]) == WASTE){
+				//a card left the waste
+				return false;
+			}
+		}
+		//first recycle
+		return false;
+	}
+	
+	/**
+	 * write the moves of the current position to the move buffer,
+	 * sorted by how promising they are and without useless moves <br>
+	 * if there is a safe move to a foundation it is the only move kept
+	 * @param offset first free entry in the move buffer
+	 * @return number of moves written
+	 */
+	int orderedMoves(int offset){
+		if (moveBuffer.length < offset + KlondikeMoves.MAX_MOVES){
+			moveBuffer = Arrays.copyOf(moveBuffer, moveBuffer.length * 2);
+		}
+		int[] moves = moveBuffer;
+		int n = KlondikeMoves.generate(position, moves, offset);
+		
+		int end = offset;
+		for (int i = offset; i < offset + n; i++){
+			int move = moves[i];
+			int score = score(move);
+			if (score == SAFE){
+				moves[offset] = move;
+				return 1;
+			}
+			if (score < 0){
+				continue;
+			}
+			//insertion sort (few moves)
+			int j = end++;
+			while (j > offset && score(moves[j-1]) < score){
+				moves[j] = moves[j-1];
+				j--;
+			}
+			moves[j] = move;
+		}
+		return end - offset;
+	}
+	
+	/**
+	 * @return how promising a move is (higher is better, negative means useless)
+	 */
+	private int score(int move){
+		int src = KlondikeMoves.getSource(move);
+		int dst = KlondikeMoves.getDestination(move);
+		if (src == STOCK || dst == STOCK){
+			return 0;
+		}
+		PackedStack srcPile = position.getPile(src);
+		int count = KlondikeMoves.getCount(move);
+		if (dst < TABLEAU){
+			//to foundation
+			return isSafe(srcPile.getTop())? SAFE : 5;
+		}
+		if (src == WASTE){
+			return 2;
+		}
+		if (KlondikeMoves.isFlip(move)){
+			return 4;
+		}
+		if (count == srcPile.size()){
+			//empties the pile, useless if it lands on an empty pile
+			return position.getPile(dst).isEmpty()? -1 : 3;
+		}
+		return 1;
+	}
+	
+	/**
+	 * a card is safe to move to a foundation if no card in the tableau 
+	 * could need it (both foundations of the other color are high enough)
+	 * @return true if moving the card to a foundation can't lose a win
+	 */
+	private boolean isSafe(byte card){
+		int rank = PackedCard.rank(card);
+		if (rank <= 1){
+			//aces and deuces
+			return true;
+		}
+		boolean red = PackedCard.isRed(card);
+		int otherColorMin = PackedCard.RANKS;
+		int otherColorPiles = 0;
+		for (int f = FOUNDATION; f < TABLEAU; f++){
+			PackedStack pile = position.getPile(f);
+			if (!pile.isEmpty() && PackedCard.isRed(pile.get(0)) != red){
+				otherColorMin = Math.min(otherColorMin, pile.size());
+				otherColorPiles++;
+			}
+		}
+		return otherColorPiles == 2 && otherColorMin >= rank;
+	}
+}
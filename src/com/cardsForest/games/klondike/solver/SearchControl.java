@@ -0,0 +1,98 @@
+package com.cardsForest.games.klondike.solver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * state shared by all the {@link Search} objects working on one position
+ * <p>
+ * holds the budgets and the outcome, safe to share between threads
+ * 
+ * @author Amit Portnoy
+ */
+final class SearchControl {
+
+	/** visited positions */
+	final TranspositionTable table;
+	/** maximum number of searched positions */
+	private final long nodeBudget;
+	/** end of the time budget ({@code System.nanoTime}) */
+	private final long deadline;
+	/** start of the search ({@code System.nanoTime}) */
+	final long startTime;
+	
+	/** number of searched positions (updated in batches by each search) */
+	private final AtomicLong nodes;
+	/** the winning line (null until found) */
+	private final AtomicReference<int[]> solution;
+	
+	/** true when all searches should stop (win found or budget ran out) */
+	volatile boolean stop;
+	/** true if a budget ran out */
+	volatile boolean aborted;
+	/** true if a line was cut at the maximum depth */
+	volatile boolean truncated;
+	
+	/**
+	 * @param table table to keep visited positions in (cleared on creation)
+	 * @param nodeBudget maximum number of searched positions
+	 * @param timeBudget maximum search time (milliseconds)
+	 */
+	SearchControl(TranspositionTable table, long nodeBudget, long timeBudget){
+		this.table = table;
+		this.nodeBudget = nodeBudget;
+		startTime = System.nanoTime();
+		deadline = startTime + timeBudget * 1000000L;
+		nodes = new AtomicLong();
+		solution = new AtomicReference<int[]>();
+		stop = false;
+		aborted = false;
+		truncated = false;
+		
+		table.clear();
+	}
+	
+	/**
+	 * add searched positions and check the budgets
+	 * @param count number of positions searched since the last call
+	 * @return false if the search should stop
+	 */
+	boolean addNodes(long count){
+		long total = nodes.addAndGet(count);
+		if (total >= nodeBudget 
+				|| System.nanoTime() > deadline
+				|| table.isFull()){
+			aborted = true;
+			stop = true;
+		}
+		return !stop;
+	}
+	
+	/**
+	 * report a win, only the first reported line is kept
+	 * @param line the winning line
+	 */
+	void solved(int[] line){
+		solution.compareAndSet(null, line);
+		stop = true;
+	}
+	
+	/**
+	 * @return the search result
+	 */
+	SolverResult result(){
+		int[] line = solution.get();
+		SolverResult.Status status;
+		if (line != null){
+			status = SolverResult.Status.SOLVED;
+		} else if (aborted || truncated){
+			status = SolverResult.Status.UNKNOWN;
+		} else {
+			status = SolverResult.Status.UNSOLVABLE;
+		}
+		return new SolverResult(status, 
+				line != null? line : new int[0], 
+				nodes.get(), 
+				System.nanoTime() - startTime);
+	}
+}
@@ -0,0 +1,82 @@
+package com.cardsForest.games.klondike.solver;
+
+import com.cardsForest.games.klondike.KlondikeMoves;
+
+/**
+ * the result of a {@link KlondikeSolver} search
+ * 
+ * @author Amit Portnoy
+ */
+public class SolverResult {
+
+	/**
+	 * search outcome
+	 */
+	public enum Status {
+		/** a winning line was found */
+		SOLVED,
+		/** the whole move tree was searched, there is no win */
+		UNSOLVABLE,
+		/** the search ended before reaching an answer 
+		 * (node, time or memory budget, or a line reached the maximum depth) */
+		UNKNOWN
+	}
+	
+	private final Status status;
+	private final int[] moves;
+	private final long nodes;
+	private final long nanos;
+	
+	/**
+	 * @param status search outcome
+	 * @param moves winning line (empty unless solved)
+	 * @param nodes number of positions searched
+	 * @param nanos search time in nanoseconds
+	 */
+	public SolverResult(Status status, int[] moves, long nodes, long nanos) {
+		this.status = status;
+		this.moves = moves;
+		this.nodes = nodes;
+		this.nanos = nanos;
+	}
+
+	/**
+	 * @return the search outcome
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the winning line, moves are encoded by {@link KlondikeMoves} 
+	 * (empty unless solved)
+	 */
+	public int[] getMoves() {
+		return moves;
+	}
+
+	/**
+	 * @return number of positions searched
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return search time in nanoseconds
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+	
+	@Override
+	public String toString(){
+		StringBuilder sb = new StringBuilder();
+		sb.append(status).append(" (").append(nodes).append(" nodes, ")
+			.append(nanos / 1000000L).append(" ms)");
+		for (int move : moves){
+			sb.append("\n").append(KlondikeMoves.toString(move));
+		}
+		return sb.toString();
+	}
+}
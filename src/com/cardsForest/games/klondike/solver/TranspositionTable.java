@@ -0,0 +1,34 @@
+package com.cardsForest.games.klondike.solver;
+
+/**
+ * set of visited positions used by {@link KlondikeSolver} 
+ * <p>
+ * positions are stored by their 64 bit hash only
+ * (see {@link KlondikeSolver#hash})
+ * 
+ * @author Amit Portnoy
+ */
+public interface TranspositionTable {
+
+	/**
+	 * mark a position as visited
+	 * @param hash the position's hash
+	 * @return true if the position was not visited before
+	 */
+	public boolean visit(long hash);
+	
+	/**
+	 * @return true if no more positions can be stored
+	 */
+	public boolean isFull();
+	
+	/**
+	 * @return number of stored positions
+	 */
+	public int size();
+	
+	/**
+	 * remove all stored positions
+	 */
+	public void clear();
+}
@@ -5,7 +5,7 @@ package com.cardsForest.games.twoStacks;
 
 
 import com.cardsForest.foundations.Stack;
-import com.cardsForest.glue.Selection;
+import com.cardsForest.glue.GameContext;
 import com.cardsForest.logic.Behavior;
 
 /**
@@ -16,7 +16,8 @@ public class StackBehavior extends Behavior {
 
 	Stack other;
 	
-	public StackBehavior(Stack other) {
+	public StackBehavior(GameContext context, Stack other) {
+		super(context);
 		this.other = other;
 	}
 
@@ -25,7 +26,6 @@ public class StackBehavior extends Behavior {
 	 */
 	@Override
 	public void click(Stack stack, int cardIndex) {
-		Selection selection = Selection.get();
 		if (selection.isAvailable()){
 			selection.selectEnd(stack);
 		}else{
@@ -37,7 +37,6 @@ public class StackBehavior extends Behavior {
 
 	@Override
 	public void doubleClick(Stack stack, int cardIndex) {
-		Selection selection = Selection.get();
 		if (! selection.stack.isEmpty()){
 			selection.selectEnd(other);
 		}
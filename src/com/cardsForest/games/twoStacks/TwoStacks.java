@@ -4,6 +4,7 @@
 package com.cardsForest.games.twoStacks;
 
 import com.cardsForest.foundations.Stack;
+import com.cardsForest.glue.GameContext;
 import com.cardsForest.logic.GameLogic;
 
 /**
@@ -16,30 +17,40 @@ public class TwoStacks extends GameLogic {
 	Stack stack2;
 	
 	public TwoStacks(){
+		this(false);
+	}
+	
+	/**
+	 * @param headless true to create a game without display state
+	 */
+	public TwoStacks(boolean headless){
+		super(headless);
+		createStacks();
+	}
+	
+	/**
+	 * @param context the game's context (must not be shared with another game)
+	 */
+	public TwoStacks(GameContext context){
+		super(context);
 		createStacks();
 	}
 	
 	private void createStacks(){
 		
-		stack1 = Stack.newEmptyStack();
-		stack2 = Stack.newEmptyStack();
-		Stack stack3 = Stack.newEmptyStack();
+		stack1 = newStack(0.2, 0.5, true);
+		stack2 = newStack(0.8, 0.5, true);
+		Stack stack3 = newStack(0.5, 0.6, true);
 		
 		
-		stack1.setBehavior(new StackBehavior(stack2));
-		stack1.getSprite().setRelativePos(0.2, 0.5);
-		stack1.getSprite().spread = true;
+		stack1.setBehavior(new StackBehavior(context, stack2));
 		stacks.add(stack1);
 		
 		
-		stack2.setBehavior(new StackBehavior(stack1));
-		stack2.getSprite().setRelativePos(0.8, 0.5);
-		stack2.getSprite().spread = true;
+		stack2.setBehavior(new StackBehavior(context, stack1));
 		stacks.add(stack2);
 		
-		stack3.setBehavior(new StackBehavior(stack1));
-		stack3.getSprite().setRelativePos(0.5, 0.6);
-		stack3.getSprite().spread = true;
+		stack3.setBehavior(new StackBehavior(context, stack1));
 		stacks.add(stack3);
 	}
 	
@@ -59,7 +70,7 @@ public class TwoStacks extends GameLogic {
 	 */
 	@Override
 	public void deal(){
-		Stack stock = Stack.newDeck();
+		Stack stock = newDeck();
 		stock.moveTo(stack1, 10,true);
 		stack1.setAllFaceUp(true);
 	}
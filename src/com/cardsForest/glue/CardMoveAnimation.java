@@ -2,6 +2,7 @@ package com.cardsForest.glue;
 
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.util.List;
 
 import com.cardsForest.foundations.Card;
@@ -27,6 +28,11 @@ public class CardMoveAnimation implements Motion {
 	Stack dst;
 	/** num of cards to move from source to destination */
 	int numOfCards;
+	/** number of frames the move takes (0 means the move is done at {@code SPEED}) */
+	int frames;
+	/** number of cards already on their way to the destination 
+	 * (they will land before this animation's cards, see {@link MotionGroup}) */
+	int incoming;
 	
 	/** number of animation updates before it will be done */
 	double updatesToReach;
@@ -56,6 +62,20 @@ public class CardMoveAnimation implements Motion {
 	public CardMoveAnimation(Stack src,
 							 Stack dst,
 							 int numOfCards){
+		this(src, dst, numOfCards, 0);
+	}
+	
+	/**
+	 * create a new card move animation that takes a fixed number of frames
+	 * @param src source stack
+	 * @param dst destination stack
+	 * @param numOfCards number of cards to move from source to destination
+	 * @param frames number of frames the move takes (0 to move at {@code SPEED})
+	 */
+	public CardMoveAnimation(Stack src,
+							 Stack dst,
+							 int numOfCards,
+							 int frames){
 		if (src == null
 				||
 				dst == null){
@@ -66,6 +86,7 @@ public class CardMoveAnimation implements Motion {
 		this.numOfCards = numOfCards;
 		this.src = src;
 		this.dst = dst;
+		this.frames = frames;
 		
 		done = false;
 	}	
@@ -100,17 +121,27 @@ public class CardMoveAnimation implements Motion {
 		List<Card> view = sCards.subList(sCards.size()- numOfCards, sCards.size());
 		mCards.addAll(view);
 		view.clear();
+		src.getSprite().updateBounds();
 		
 		//set start position
 		cx = sprite.x;
 		cy = sprite.y;
 		
 		//get end position
-		Point p = dst.getSprite().getCardPos(dCards.size());
+		Point p = dst.getSprite().getCardPos(dCards.size() + incoming);
 		
 		//distance
 		distX = p.x- cx;
 		distY = p.y- cy;
+		
+		if (frames > 0){
+			//fixed duration
+			dx = distX / frames;
+			dy = distY / frames;
+			updatesToReach = frames;
+			return;
+		}
+		
 		dist = Math.sqrt(Math.pow(distX,2)+Math.pow(distY,2));
 		//angle
 		alpha = Math.atan(Math.abs(distY/distX));
@@ -128,10 +159,7 @@ public class CardMoveAnimation implements Motion {
 			updatesToReach--;
 			if(0 >= updatesToReach){
 				//cards reached their destination
-				//move from moving sprite to destination
-				dCards.addAll(mCards);
-				mCards.clear();
-				done = true;
+				land();
 			}else{
 				//continue animation
 				//add delta to current position
@@ -144,6 +172,28 @@ public class CardMoveAnimation implements Motion {
 		}
 	}
 	
+	/**
+	 * move the cards from the moving sprite to the destination
+	 */
+	private void land(){
+		dCards.addAll(mCards);
+		mCards.clear();
+		dst.getSprite().updateBounds();
+		done = true;
+	}
+	
+	@Override
+	public void finish(){
+		if (!done && mCards == null){
+			//not started yet
+			init();
+		}
+		if (!done){
+			//land now
+			land();
+		}
+	}
+	
 	@Override
 	public void draw(Graphics g){
 		if (!done){
@@ -152,6 +202,15 @@ public class CardMoveAnimation implements Motion {
 		}
 	}
 	
+	@Override
+	public Rectangle getDrawArea() {
+		if (done){
+			return null;
+		}
+		sprite.updateBounds();
+		return sprite.getDrawArea();
+	}
+	
 	@Override
 	public boolean isDone() {
 		return done;
@@ -4,12 +4,32 @@ import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsEnvironment;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
-import java.util.EnumMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 
 import javax.imageio.ImageIO;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 import com.cardsForest.foundations.Face;
 
@@ -17,8 +37,19 @@ import static com.cardsForest.platform.Shortcuts.*;
 
 /**
  * supply the game with card related graphics (sprite)
- * TODO later this will be a much more efficient implementation
- * of image loading (vector graphics / use of one big image)
+ * <p>
+ * the sprites are shared by all games (thread safe, getting a loaded sprite takes no lock)
+ * <p>
+ * the card images are loaded from an atlas (built by {@code CardAtlasBuilder} in tools/src):
+ * one sheet image and an index of where each card image sits on it <br>
+ * the sheet is read once and all sprites draw from it (and from its selection variant),
+ * if there is no atlas each image is loaded from its own file
+ * <p>
+ * sprites can be loaded in the background ({@code loadAllAsync}),
+ * getting a sprite waits only for that sprite
+ * <p>
+ * decoded images are kept on disk by {@link SpriteCache},
+ * later launches read them from there instead of decoding them again
  * 
  * @see Sprite
  * @author Amit Portnoy
@@ -27,18 +58,38 @@ public final class CardSpriteStore {
 
 	/** hold the path to image resources */
 	final static String basepath = "classic-cards/";
+	/** name of the back image */
+	final static String BACK = "back.png";
+	/** name of the atlas' sheet image */
+	final static String ATLAS_IMAGE = "allCards";
+	/** name of the atlas' index (a sheet element with a sprite element for each image) */
+	final static String ATLAS_INDEX = "allCards.xml";
 	
 	/** holds the sprites for fast retrieval */
-	private static Map<Face,Sprite> sprites = new EnumMap<Face,Sprite>(Face.class);
+	private static final ConcurrentMap<Face,Sprite> sprites = new ConcurrentHashMap<Face,Sprite>();
 	/** holds the back card sprite */
-	private static Sprite back = null;
+	private static volatile Sprite back = null;
+	/** size of a card (0 until the back is loaded) */
+	private static volatile int width, height;
+	/** the loading task of each image name (null until loading starts, not changed after) */
+	private static volatile Map<String,FutureTask<Sprite>> tasks = null;
+	
+	/**
+	 * static class behavior
+	 */
+	private CardSpriteStore(){
+		throw new UnsupportedOperationException();
+	}
 	
 	/** 
 	 * get standard card height
 	 * @return card sprite height
 	 */
 	public static int getHeight(){
-		return back.getHeight();
+		if (height == 0){
+			getBack();
+		}
+		return height;
 	}
 	
 	/** 
@@ -46,28 +97,39 @@ public final class CardSpriteStore {
 	 * @return card sprite width 
 	 */
 	public static int getWidth(){
-		return back.getWidth();
+		if (width == 0){
+			getBack();
+		}
+		return width;
 	}
 	
 	/** 
-	 * get the back of a card sprite
+	 * get the back of a card sprite 
+	 * (waits for it if it is still loading)
 	 * @return the back sprite
 	 */
 	public static Sprite getBack(){
-		if (back == null)
-			back = loadSprite(basepath + "back.png");
-		return back;	
+		Sprite sprite = back;
+		if (sprite == null){
+			sprite = load(BACK);
+			height = sprite.getHeight();
+			width = sprite.getWidth();
+			back = sprite;
+		}
+		return sprite;	
 	}
 	
 	/**
 	 * get the sprite corresponding to the face
+	 * (waits for it if it is still loading)
 	 * @param face requested sprite's face
 	 * @return sprite with the requested face
 	 */
 	public static Sprite getSprite(Face face){
 		Sprite sprite = sprites.get(face);
 		if (sprite == null){
-			sprite = loadSprite(basepath + face.name()+".png");
+			//threads that load the same sprite get it from the same task
+			sprite = load(face.name()+".png");
 			sprites.put(face,sprite);
 		}
 		return sprite;
@@ -83,13 +145,195 @@ public final class CardSpriteStore {
 		}
 	}
 	
+	/**
+	 * start loading all card sprites in the background and return immediately
+	 * <p>
+	 * the images are decoded in parallel (back first), then their selection variants
+	 * are created <br>
+	 * a sprite that is needed before the background got to it is loaded by the 
+	 * thread that needs it, so the game can draw as soon as the sprites it uses are ready
+	 */
+	public static synchronized void loadAllAsync(){
+		if (tasks != null){
+			//already loading
+			return;
+		}
+		ExecutorService loader = Executors.newFixedThreadPool(
+				Runtime.getRuntime().availableProcessors(), 
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "sprite loader");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		tasks = startLoading(loader);
+		loader.shutdown();
+	}
+	
+	/**
+	 * @return the loading tasks (created if loading did not start)
+	 */
+	private static synchronized Map<String,FutureTask<Sprite>> getTasks(){
+		if (tasks == null){
+			tasks = startLoading(null);
+		}
+		return tasks;
+	}
+	
+	/**
+	 * @return the sprite of an image (loaded by the calling thread if its loading did not start)
+	 */
+	private static Sprite load(String name){
+		Map<String,FutureTask<Sprite>> all = tasks;
+		if (all == null){
+			all = getTasks();
+		}
+		//wait without a lock, only for this image
+		FutureTask<Sprite> task = all.get(name);
+		if (task == null){
+			error("no sprite named " + name);
+		}
+		//does nothing if the task already started
+		task.run();
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			error("interrupted while loading " + name);
+		} catch (ExecutionException e) {
+			error("couldn't load " + name);
+		}
+		return null;
+	}
+	
+	/**
+	 * create the loading tasks of all the images 
+	 * (from the atlas if there is one, otherwise each image from its file)
+	 * @param loader executes the tasks in the background (null to run each task when it is needed)
+	 * @return the task of each image name
+	 */
+	private static Map<String,FutureTask<Sprite>> startLoading(Executor loader){
+		List<String> names = new ArrayList<String>();
+		names.add(BACK);
+		for (Face face : Face.values()){
+			names.add(face.name() + ".png");
+		}
+		
+		Map<String,FutureTask<Sprite>> all = new HashMap<String,FutureTask<Sprite>>();
+		final URL index = CardSpriteStore.class.getClassLoader().getResource(basepath + ATLAS_INDEX);
+		if (index != null){
+			//a single task reads the atlas, the task of each image waits for it
+			final FutureTask<Map<String,Sprite>> atlas = new FutureTask<Map<String,Sprite>>(
+					new Callable<Map<String,Sprite>>() {
+						@Override
+						public Map<String,Sprite> call() throws IOException {
+							return loadAtlas(index);
+						}
+					});
+			for (final String name : names){
+				all.put(name, new FutureTask<Sprite>(new Callable<Sprite>() {
+					@Override
+					public Sprite call() throws Exception {
+						atlas.run();
+						return atlas.get().get(name);
+					}
+				}));
+			}
+			if (loader != null){
+				loader.execute(atlas);
+				//all the sprites share the atlas' sheet
+				loader.execute(selectionVariant(all.get(BACK)));
+			}
+			return all;
+		}
+		
+		for (final String name : names){
+			all.put(name, new FutureTask<Sprite>(new Callable<Sprite>() {
+				@Override
+				public Sprite call() {
+					return loadSprite(basepath + name);
+				}
+			}));
+		}
+		if (loader != null){
+			for (String name : names){
+				loader.execute(all.get(name));
+			}
+			for (String name : names){
+				loader.execute(selectionVariant(all.get(name)));
+			}
+		}
+		return all;
+	}
+	
+	/**
+	 * @return a task that creates the selection variant of a sprite's sheet (once the sprite is loaded)
+	 */
+	private static Runnable selectionVariant(final FutureTask<Sprite> task){
+		return new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.get().getSheet().getSelected();
+				} catch (Exception e) {
+					//the thread that needs the sprite will report it
+				}
+			}
+		};
+	}
+	
+	/**
+	 * read the atlas' sheet and index
+	 * @param index the index resource
+	 * @return the sprite of each image name
+	 */
+	private static Map<String,Sprite> loadAtlas(URL index) throws IOException {
+		final SpriteSheet sheet = new SpriteSheet(loadImage(basepath + ATLAS_IMAGE));
+		
+		final Map<String,Sprite> named = new HashMap<String,Sprite>();
+		InputStream in = index.openStream();
+		try {
+			SAXParserFactory.newInstance().newSAXParser().parse(in, new DefaultHandler(){
+				@Override
+				public void startElement(String uri, String localName, String qName, Attributes attributes){
+					if (qName.equals("sprite")){
+						named.put(attributes.getValue("name"), new Sprite(sheet, 
+								Integer.parseInt(attributes.getValue("x")), 
+								Integer.parseInt(attributes.getValue("y")),
+								Integer.parseInt(attributes.getValue("width")), 
+								Integer.parseInt(attributes.getValue("height"))));
+					}
+				}
+			});
+		} catch (ParserConfigurationException e) {
+			throw new IOException("can't parse " + ATLAS_INDEX, e);
+		} catch (SAXException e) {
+			throw new IOException("bad atlas index", e);
+		} finally {
+			in.close();
+		}
+		return named;
+	}
+	
 	/**
 	 * load one card sprite to memory
 	 * @param imageResource path to the sprite image file (currently PNG)
 	 * @return prepared and loaded sprite
 	 */
 	private static Sprite loadSprite(String imageResource) {
-		Sprite sprite;
+		BufferedImage image = loadImage(imageResource);
+		//the selection variant is created when needed
+		return new Sprite(new SpriteSheet(image), 0, 0, image.getWidth(), image.getHeight());
+	}
+	
+	/**
+	 * read an image resource into an image compatible with the screen
+	 * (from the {@link SpriteCache} if it holds the image, decoded otherwise)
+	 * @param imageResource path to the image file (currently PNG)
+	 * @return the image
+	 */
+	private static BufferedImage loadImage(String imageResource) {
 		//look for the image file
 		URL url = CardSpriteStore.class.getClassLoader().getResource(imageResource);
 		
@@ -98,26 +342,79 @@ public final class CardSpriteStore {
 			error("resource not found");
 		}
 		
-		//read the image to memory
+		//read the file to memory (it keys the cache)
+		byte[] resource = null;
+		try {
+			resource = readResource(url);
+		} catch (IOException e) {
+			error("couldn't read image");
+		}
+		
+		BufferedImage image = SpriteCache.load(imageResource, resource);
+		if (image != null){
+			return image;
+		}
+		
+		//decode the image
 		BufferedImage sourceImage = null;
 		try {
-			sourceImage = ImageIO.read(url);
+			sourceImage = ImageIO.read(new ByteArrayInputStream(resource));
 		} catch (IOException e) {
 			error("couldn't read image");
 		}
+		if (sourceImage == null){
+			error("couldn't read image");
+		}
 		
+		image = compatibleCopy(sourceImage);
+		SpriteCache.store(imageResource, resource, image);
+		return image;
+	}
+	
+	/**
+	 * @return the content of a resource
+	 */
+	private static byte[] readResource(URL url) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		InputStream in = url.openStream();
+		try {
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) != -1){
+				out.write(buffer, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+		return out.toByteArray();
+	}
+	
+	/**
+	 * @return a copy of the image compatible with the screen
+	 */
+	static BufferedImage compatibleCopy(BufferedImage sourceImage) {
 		//create a better buffer for the image
-		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
-		BufferedImage image = gc.createCompatibleImage(sourceImage.getWidth(),sourceImage.getHeight(),sourceImage.getColorModel( ).getTransparency( ));
+		BufferedImage image = compatibleImage(sourceImage.getWidth(), sourceImage.getHeight(),
+				sourceImage.getColorModel().getTransparency());
 
 		//copy the image to the better buffer
 		Graphics2D g  = (Graphics2D) image.createGraphics();
 		g.drawImage(sourceImage,0,0,null);
 		g.dispose();
 		
-		//save the image in cache
-		sprite = new Sprite(image);
-		
-		return sprite;
+		return image;
+	}
+	
+	/**
+	 * @param transparency transparency of the image (see {@link java.awt.Transparency})
+	 * @return a new image compatible with the screen
+	 */
+	static BufferedImage compatibleImage(int width, int height, int transparency) {
+		if (GraphicsEnvironment.isHeadless()){
+			//no screen to be compatible with (e.g. benchmarks)
+			return new BufferedImage(width,height,BufferedImage.TYPE_INT_ARGB);
+		}
+		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+		return gc.createCompatibleImage(width,height,transparency);
 	}
 }
@@ -5,6 +5,7 @@ package com.cardsForest.glue;
 
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.Rectangle;
 
 /**
  * holds information relevant to current drag event
@@ -37,12 +38,16 @@ public class Drag implements Motion{
 	/** true if drag is done */
 	volatile boolean done;
 	
+	/** the selection being dragged */
+	final Selection selection;
 	
 	/**
 	 * initialize a new drag event
+	 * @param selection the selection of the game being dragged on
 	 * @param point the starting point
 	 */
-	public Drag(Point point) {
+	public Drag(Selection selection, Point point) {
+		this.selection = selection;
 		start = point;
 		end = null;
 		offset = new Point(0,0);
@@ -87,7 +92,7 @@ public class Drag implements Motion{
 	
 	@Override
 	public void init() {
-		if (!Selection.get().isAvailable()){
+		if (!selection.isAvailable()){
 			//if we don't have available selection
 			//no need to start motion
 			done = true;
@@ -97,7 +102,7 @@ public class Drag implements Motion{
 	@Override
 	public synchronized void updateFrame() {
 		//update selection with current offset
-		Selection.get().setOffset(offset.x,offset.y);
+		selection.setOffset(offset.x,offset.y);
 		
 	}
 	
@@ -109,9 +114,21 @@ public class Drag implements Motion{
 	//selection when available
 	}
 	
+	@Override
+	public Rectangle getDrawArea() {
+		//the selection's sprite keeps its own dirty area
+		return null;
+	}
+	
 
 	@Override
 	public boolean isDone() {
 		return done;
 	}
+	
+	@Override
+	public void finish() {
+	//do nothing
+	//the drag is done when the mouse is released
+	}
 }
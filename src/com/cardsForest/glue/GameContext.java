@@ -0,0 +1,91 @@
+package com.cardsForest.glue;
+
+import com.cardsForest.foundations.SplitMixRandom;
+import com.cardsForest.foundations.Stack;
+
+/**
+ * holds all the state that belongs to a single game
+ * <p>
+ * every {@link Stack} of a game, its {@link com.cardsForest.logic.Behavior} objects
+ * and every {@link Stack.Operation} performed on it share the same context,
+ * nothing is kept in static fields so that independent games 
+ * can run in one JVM, each on its own thread
+ * <p>
+ * a context is not thread safe, a game must only be used by one thread at a time
+ * 
+ * @see OperationManager
+ * @see Selection
+ * @author Amit Portnoy
+ *
+ */
+public class GameContext {
+
+	/** true if the game runs without any display state */
+	private final boolean headless;
+	/** log of the game's operations */
+	private final OperationManager operationManager;
+	/** the game's selection */
+	private final Selection selection;
+	/** draws the game's animations ({@code null} when there is nothing to draw on) */
+	private MotionDrawer motionDrawer;
+	/** used by all of the game's shuffles */
+	private final SplitMixRandom random;
+	
+	/**
+	 * create a new game context
+	 * @param headless if true the game's stacks will have no display state
+	 */
+	public GameContext(boolean headless){
+		this.headless = headless;
+		operationManager = new OperationManager(this);
+		motionDrawer = null;
+		random = new SplitMixRandom(System.nanoTime());
+		//selection creates its stack using this context 
+		//(must be last)
+		selection = new Selection(this);
+	}
+	
+	/**
+	 * @return true if the game runs without any display state
+	 */
+	public boolean isHeadless() {
+		return headless;
+	}
+
+	/**
+	 * @return the game's operation manager
+	 */
+	public OperationManager getOperationManager() {
+		return operationManager;
+	}
+
+	/**
+	 * @return the game's selection
+	 */
+	public Selection getSelection() {
+		return selection;
+	}
+
+	/**
+	 * the game's generator, seed it to reproduce a game
+	 * (see {@link com.cardsForest.logic.GameLogic#deal(long)})
+	 * @return the generator used by all of the game's shuffles
+	 */
+	public SplitMixRandom getRandom() {
+		return random;
+	}
+
+	/**
+	 * @return the motion drawer ({@code null} if animations are not drawn)
+	 */
+	public MotionDrawer getMotionDrawer() {
+		return motionDrawer;
+	}
+
+	/**
+	 * @param motionDrawer the motion drawer to set ({@code null} to disable animations)
+	 */
+	public void setMotionDrawer(MotionDrawer motionDrawer) {
+		this.motionDrawer = motionDrawer;
+	}
+}
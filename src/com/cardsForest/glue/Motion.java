@@ -1,6 +1,7 @@
 package com.cardsForest.glue;
 
 import java.awt.Graphics;
+import java.awt.Rectangle;
 
 /**
  * this interface is meant to work with {@link com.cardsForest.platform.Game}'s {@code drawMotion} method.
@@ -35,6 +36,12 @@ public interface Motion{
 	 */
 	public abstract void draw(Graphics g);
 	
+	/**
+	 * @return the area the motion draws on in its current frame 
+	 * (null if it draws nothing)
+	 */
+	public Rectangle getDrawArea();
+	
 	
 	/**
 	 * return true if motion is done
@@ -42,6 +49,13 @@ public interface Motion{
 	 */
 	public boolean isDone();
 	
+	/**
+	 * jump to the end of the motion (the changes it makes are done at once) <br>
+	 * used when the player does not wait for the motion, 
+	 * a motion that can't end on its own (e.g. a {@link Drag}) keeps going
+	 */
+	public void finish();
+	
 	
 	
 }
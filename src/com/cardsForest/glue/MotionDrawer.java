@@ -0,0 +1,22 @@
+package com.cardsForest.glue;
+
+/**
+ * draws {@link Motion} objects for a single game <br>
+ * (implemented by {@link com.cardsForest.platform.Game})
+ * <p>
+ * operations reach their game's drawer through {@link GameContext}
+ * 
+ * @see GameContext
+ * @author Amit Portnoy
+ *
+ */
+public interface MotionDrawer {
+
+	/**
+	 * start drawing the motion (returns without waiting for it) <br>
+	 * the motion is drawn frame by frame along with the game's other motions,
+	 * it waits for earlier motions that change the same stacks
+	 * @param anim motion to draw
+	 */
+	public void drawMotion(Motion anim);
+}
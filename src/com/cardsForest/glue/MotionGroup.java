@@ -0,0 +1,269 @@
+package com.cardsForest.glue;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.cardsForest.foundations.Stack;
+import com.cardsForest.foundations.Stack.Operation;
+import com.cardsForest.glue.OperationManager.MoveToOperation;
+import com.cardsForest.platform.Game;
+
+/**
+ * display phase of a group of operations drawn as a single motion
+ * (used by {@link OperationManager} for every display phase of a game that draws motions)
+ * <p>
+ * every card move takes the same number of frames and the moves start one
+ * after the other with a short stagger, so the whole group takes about {@code TIME_BUDGET} <br>
+ * the other operations (flips, shuffles...) are displayed as soon as
+ * the cards moving to their stacks have landed
+ * <p>
+ * the order of each stack's changes is kept:
+ * cards land on a stack in the order of their operations
+ * and an operation is never displayed before an earlier operation on the same stack
+ *
+ * @see CardMoveAnimation
+ * @author Amit Portnoy
+ */
+final class MotionGroup implements Motion {
+
+	/** seconds a single card move takes */
+	static final double MOVE_TIME = 0.25;
+	/** seconds the whole group should take */
+	static final double TIME_BUDGET = 1.0;
+	/** frames a single card move takes */
+	static final int MOVE_FRAMES = (int) Math.max(1, Math.round(MOVE_TIME * Game.FPS));
+
+	/** the operations (in the order they were performed) */
+	private final List<Step> steps;
+	/** state of each stack changed by the group */
+	private final Map<Stack, StackState> states;
+	/** moves that started and did not land yet */
+	private final List<Step> moving;
+	/** number of card moves */
+	private int moves;
+	/** index of the next step to start (after init the steps are sorted by frame) */
+	private int next;
+	/** current frame */
+	private int frame;
+
+	MotionGroup(){
+		steps = new ArrayList<Step>();
+		states = new HashMap<Stack, StackState>();
+		moving = new ArrayList<Step>();
+	}
+
+	/**
+	 * add the next operation of the display phase
+	 * @param o the operation
+	 * @param animated true if the operation is a card move to animate
+	 */
+	void add(Operation o, boolean animated){
+		Step step = new Step(o);
+		//the group's stacks are known before it starts (see MotionScheduler)
+		state(o.getStack());
+		if (o instanceof MoveToOperation){
+			state(((MoveToOperation) o).dst);
+		}
+		if (animated){
+			MoveToOperation move = (MoveToOperation) o;
+			step.animation = new CardMoveAnimation(move.getStack(), move.dst, move.num, MOVE_FRAMES);
+			moves++;
+		}
+		steps.add(step);
+	}
+	
+	/**
+	 * @return the stacks the group changes
+	 */
+	Set<Stack> getStacks(){
+		return states.keySet();
+	}
+
+	/**
+	 * @return number of card moves in the group
+	 */
+	int getMoves(){
+		return moves;
+	}
+
+	/**
+	 * schedule the steps and start the ones of the first frame
+	 */
+	@Override
+	public void init(){
+		schedule();
+		frame = 0;
+		startSteps();
+	}
+
+	/**
+	 * give each step its start frame: <br>
+	 * moves start {@code stagger} frames apart (or later, if they wait for their stacks),
+	 * other operations start once the previous changes of their stacks are done
+	 */
+	private void schedule(){
+		double stagger = 0;
+		if (moves > 1){
+			stagger = (TIME_BUDGET * Game.FPS - MOVE_FRAMES) / (moves - 1);
+			//small groups should not be slower than a single move
+			stagger = Math.max(0, Math.min(stagger, MOVE_FRAMES / 3.0));
+		}
+		double cursor = 0;
+		for (Step step : steps){
+			StackState src = state(step.operation.getStack());
+			if (step.animation != null){
+				StackState dst = state(step.animation.dst);
+				int start = Math.max((int) cursor, Math.max(src.landed, src.done));
+				//must land after the last change of dst
+				start = Math.max(start, dst.done - MOVE_FRAMES + 1);
+
+				step.frame = start;
+				cursor = Math.max(cursor, start) + stagger;
+				src.started = Math.max(src.started, start);
+				dst.landed = Math.max(dst.landed, start + MOVE_FRAMES);
+			} else {
+				StackState dst = (step.operation instanceof MoveToOperation)?
+						state(((MoveToOperation) step.operation).dst) : src;
+				int start = Math.max(src.ready(), dst.ready());
+
+				step.frame = start;
+				src.done = start;
+				dst.done = start;
+			}
+		}
+
+		//stable, so steps of the same frame keep their order
+		Collections.sort(steps, new Comparator<Step>() {
+			@Override
+			public int compare(Step a, Step b) {
+				return a.frame < b.frame? -1 : (a.frame == b.frame? 0 : 1);
+			}
+		});
+		next = 0;
+	}
+
+	@Override
+	public void updateFrame(){
+		frame++;
+		//land first, the steps of this frame may wait for it
+		for (int i = 0; i < moving.size(); i++){
+			Step step = moving.get(i);
+			step.animation.updateFrame();
+			if (step.animation.isDone()){
+				state(step.animation.dst).incoming -= step.animation.numOfCards;
+				moving.remove(i--);
+			}
+		}
+		startSteps();
+	}
+
+	/**
+	 * start the steps of the current frame
+	 */
+	private void startSteps(){
+		while (next < steps.size() && steps.get(next).frame <= frame){
+			Step step = steps.get(next++);
+			if (step.animation == null){
+				step.operation.doDisplay();
+				continue;
+			}
+			CardMoveAnimation animation = step.animation;
+			StackState dst = state(animation.dst);
+			animation.incoming = dst.incoming;
+			animation.init();
+			if (!animation.isDone()){
+				dst.incoming += animation.numOfCards;
+				moving.add(step);
+			}
+		}
+	}
+
+	@Override
+	public void draw(Graphics g){
+		for (Step step : moving){
+			step.animation.draw(g);
+		}
+	}
+
+	@Override
+	public Rectangle getDrawArea(){
+		Rectangle area = null;
+		for (Step step : moving){
+			Rectangle a = step.animation.getDrawArea();
+			if (a != null){
+				area = (area == null)? a : area.union(a);
+			}
+		}
+		return area;
+	}
+
+	@Override
+	public boolean isDone(){
+		return next == steps.size() && moving.isEmpty();
+	}
+
+	/**
+	 * run the rest of the group's frames without drawing them
+	 * (so the steps are done in their usual order)
+	 */
+	@Override
+	public void finish(){
+		while (!isDone()){
+			updateFrame();
+		}
+	}
+
+	/**
+	 * @return the state of a stack (created on first use)
+	 */
+	private StackState state(Stack stack){
+		StackState state = states.get(stack);
+		if (state == null){
+			state = new StackState();
+			states.put(stack, state);
+		}
+		return state;
+	}
+
+	/**
+	 * an operation and its start frame
+	 */
+	private static final class Step {
+		final Operation operation;
+		/** animation of a card move (null for other operations) */
+		CardMoveAnimation animation;
+		int frame;
+
+		Step(Operation operation){
+			this.operation = operation;
+		}
+	}
+
+	/**
+	 * frames of the last changes of a stack
+	 */
+	private static final class StackState {
+		/** last frame in which cards land on the stack */
+		int landed;
+		/** last frame in which cards left the stack */
+		int started;
+		/** last frame in which another operation changed the stack */
+		int done;
+		/** number of cards on their way to the stack (while drawing) */
+		int incoming;
+
+		/**
+		 * @return first frame in which a new operation can change the stack
+		 */
+		int ready(){
+			return Math.max(Math.max(landed, started), done);
+		}
+	}
+}
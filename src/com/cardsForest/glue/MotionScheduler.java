@@ -0,0 +1,243 @@
+package com.cardsForest.glue;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.cardsForest.foundations.Stack;
+
+/**
+ * runs any number of motions together
+ * (used by {@link com.cardsForest.platform.Game} to draw its motions without blocking)
+ * <p>
+ * every frame advances all active motions, the scheduler is drawn as a single motion <br>
+ * a motion that changes a stack an earlier motion is still changing waits until
+ * that motion is done (so the changes of each stack are displayed in order),
+ * motions on other stacks run at the same time <br>
+ * a {@link Drag} (and any motion whose stacks are not known) waits for all earlier motions
+ * and all later motions wait for it
+ * <p>
+ * the player should not wait for motions of moves that are already done: 
+ * when a new motion has to wait for more than {@code MAX_BACKLOG} earlier motions
+ * (the motions on its stacks and the motions those wait for), 
+ * they are finished at once (see {@link Motion#finish}) and the new motion starts,
+ * motions on other stacks keep running
+ *
+ * @see MotionGroup
+ * @author Amit Portnoy
+ */
+public final class MotionScheduler implements Motion {
+
+	/** number of earlier motions a new motion may wait for (when it has to wait for more they are finished) */
+	static final int MAX_BACKLOG = 1;
+
+	/** motions that are running (in the order they started) */
+	private final List<Motion> active;
+	/** motions that wait for earlier motions (in the order they were added) */
+	private final List<Motion> waiting;
+
+	public MotionScheduler(){
+		active = new ArrayList<Motion>();
+		waiting = new ArrayList<Motion>();
+	}
+
+	/**
+	 * add a motion, it starts now unless it has to wait for earlier motions
+	 * @param motion the motion
+	 */
+	public void add(Motion motion){
+		if (waiting.isEmpty() && !conflicts(motion, active)){
+			start(motion);
+		} else {
+			waiting.add(motion);
+			startWaiting();
+			if (waiting.contains(motion)){
+				List<Motion> backlog = backlog(motion);
+				if (backlog.size() > MAX_BACKLOG){
+					//the player is ahead of the motions
+					catchUp(backlog);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param motion a motion that was added
+	 * @return true if the motion did not finish yet (it is running or waiting)
+	 */
+	public boolean contains(Motion motion){
+		return active.contains(motion) || waiting.contains(motion);
+	}
+
+	/**
+	 * nothing to do, motions are started when added
+	 */
+	@Override
+	public void init(){
+	}
+
+	/**
+	 * advance all active motions by a frame
+	 * and start the waiting motions that no longer have to wait
+	 */
+	@Override
+	public void updateFrame(){
+		for (int i = 0; i < active.size(); i++){
+			Motion motion = active.get(i);
+			motion.updateFrame();
+			if (motion.isDone()){
+				active.remove(i--);
+			}
+		}
+		startWaiting();
+	}
+
+	@Override
+	public void draw(Graphics g){
+		for (Motion motion : active){
+			motion.draw(g);
+		}
+	}
+
+	@Override
+	public Rectangle getDrawArea(){
+		Rectangle area = null;
+		for (Motion motion : active){
+			Rectangle a = motion.getDrawArea();
+			if (a != null){
+				area = (area == null)? a : area.union(a);
+			}
+		}
+		return area;
+	}
+
+	/**
+	 * @return true if no motion is running or waiting
+	 */
+	@Override
+	public boolean isDone(){
+		return active.isEmpty() && waiting.isEmpty();
+	}
+
+	/**
+	 * finish all motions (except the motions that can't end on their own)
+	 */
+	@Override
+	public void finish(){
+		catchUp(null);
+	}
+	
+	/**
+	 * @param motion a waiting motion
+	 * @return the earlier motions the motion waits for 
+	 * (the motions that change its stacks and the motions those wait for)
+	 */
+	private List<Motion> backlog(Motion motion){
+		List<Motion> backlog = new ArrayList<Motion>();
+		//the motion and the waiting motions it waits for
+		List<Motion> chain = new ArrayList<Motion>();
+		chain.add(motion);
+		for (int i = waiting.indexOf(motion) - 1; i >= 0; i--){
+			Motion earlier = waiting.get(i);
+			if (conflicts(earlier, chain)){
+				backlog.add(earlier);
+				chain.add(earlier);
+			}
+		}
+		for (Motion earlier : active){
+			if (conflicts(earlier, chain)){
+				backlog.add(earlier);
+			}
+		}
+		return backlog;
+	}
+	
+	/**
+	 * finish motions (in order, a waiting motion starts and finishes once it no longer waits)
+	 * @param motions the motions to finish (null to finish all motions)
+	 */
+	private void catchUp(List<Motion> motions){
+		boolean progress = true;
+		while (progress){
+			progress = false;
+			for (int i = 0; i < active.size(); i++){
+				Motion motion = active.get(i);
+				if (motions != null && !motions.contains(motion)){
+					continue;
+				}
+				motion.finish();
+				if (motion.isDone()){
+					active.remove(i--);
+					progress = true;
+				}
+			}
+			startWaiting();
+		}
+	}
+	
+	/**
+	 * initialize a motion and keep it if it is not done yet
+	 */
+	private void start(Motion motion){
+		motion.init();
+		if (!motion.isDone()){
+			active.add(motion);
+		}
+	}
+
+	/**
+	 * start the waiting motions (in order) that do not conflict with
+	 * an active motion or with an earlier waiting motion
+	 */
+	private void startWaiting(){
+		for (int i = 0; i < waiting.size(); i++){
+			Motion motion = waiting.get(i);
+			if (!conflicts(motion, active) && !conflicts(motion, waiting.subList(0, i))){
+				waiting.remove(i--);
+				start(motion);
+			}
+		}
+	}
+
+	/**
+	 * @return true if the motion changes a stack one of the others changes
+	 */
+	private static boolean conflicts(Motion motion, List<Motion> others){
+		if (others.isEmpty()){
+			return false;
+		}
+		Collection<Stack> stacks = stacksOf(motion);
+		if (stacks == null){
+			return true;
+		}
+		for (Motion other : others){
+			Collection<Stack> otherStacks = stacksOf(other);
+			if (otherStacks == null){
+				return true;
+			}
+			for (Stack stack : stacks){
+				if (otherStacks.contains(stack)){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the stacks a motion changes (null if they are not known)
+	 */
+	private static Collection<Stack> stacksOf(Motion motion){
+		if (motion instanceof MotionGroup){
+			return ((MotionGroup) motion).getStacks();
+		}
+		if (motion instanceof CardMoveAnimation){
+			CardMoveAnimation move = (CardMoveAnimation) motion;
+			return Arrays.asList(move.src, move.dst);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,110 @@
+package com.cardsForest.glue;
+
+import com.cardsForest.foundations.Stack.Operation;
+
+/**
+ * fifo ring buffer of the operations waiting for their display phase
+ * (used by {@link OperationManager})
+ * <p>
+ * the buffer is reused between display phases,
+ * it grows to fit a burst of operations and is trimmed back
+ * once it is drained (so a single burst does not hold memory forever)
+ *
+ * @author Amit Portnoy
+ */
+final class OperationLog {
+
+	/** capacity of a new log (a power of two) */
+	static final int INITIAL_CAPACITY = 64;
+	/** a drained log larger than this is trimmed back to the initial capacity */
+	static final int RETAINED_CAPACITY = 1024;
+
+	/** the operations, from head (oldest) to head+size (exclusive) */
+	private Operation[] buffer;
+	/** index of the oldest operation */
+	private int head;
+	/** number of operations in the log */
+	private int size;
+
+	OperationLog(){
+		buffer = new Operation[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * @return true if there are no operations in the log
+	 */
+	boolean isEmpty(){
+		return size == 0;
+	}
+
+	/**
+	 * @return number of operations in the log
+	 */
+	int size(){
+		return size;
+	}
+
+	/**
+	 * add an operation after the newest operation
+	 * @param o the operation to add
+	 */
+	void add(Operation o){
+		if (size == buffer.length){
+			ensureCapacity(size + 1);
+		}
+		buffer[(head + size) & (buffer.length - 1)] = o;
+		size++;
+	}
+
+	/**
+	 * remove the oldest operation
+	 * @return the oldest operation or null if the log is empty
+	 */
+	Operation poll(){
+		if (size == 0){
+			return null;
+		}
+		Operation o = buffer[head];
+		buffer[head] = null;
+		head = (head + 1) & (buffer.length - 1);
+		size--;
+		return o;
+	}
+
+	/**
+	 * make room for a group of operations (so they are added without growing)
+	 * @param capacity number of operations the log should be able to hold
+	 */
+	void ensureCapacity(int capacity){
+		if (capacity <= buffer.length){
+			return;
+		}
+		int length = buffer.length;
+		while (length < capacity){
+			length <<= 1;
+		}
+		resize(length);
+	}
+
+	/**
+	 * shrink a drained log that grew during a burst
+	 */
+	void trim(){
+		if (size == 0 && buffer.length > RETAINED_CAPACITY){
+			buffer = new Operation[INITIAL_CAPACITY];
+			head = 0;
+		}
+	}
+
+	/**
+	 * move the operations to a new buffer (oldest first)
+	 */
+	private void resize(int length){
+		Operation[] resized = new Operation[length];
+		int first = Math.min(size, buffer.length - head);
+		System.arraycopy(buffer, head, resized, 0, first);
+		System.arraycopy(buffer, 0, resized, first, size - first);
+		buffer = resized;
+		head = 0;
+	}
+}
@@ -6,19 +6,27 @@ package com.cardsForest.glue;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import com.cardsForest.foundations.Card;
 import com.cardsForest.foundations.Stack;
 import com.cardsForest.foundations.Stack.Operation;
-import com.cardsForest.platform.Game;
 
 /**
- * keeps a log of the operations perform on the stacks <br>
+ * keeps a log of the operations perform on the stacks of one game <br>
  * runs the operation:<br>
  * 1. logical phase is done immediately  <br>
- * 2. display phase is triggered by {@link Game} (by calling {@code doDisplayOperations})
+ * 2. display phase is triggered by {@link com.cardsForest.platform.Game} (by calling {@code doDisplayOperations})
  * and is performed after all logic is done
  * <p>
+ * also keeps the undo / redo history: <br>
+ * operations are grouped into actions (see {@code endAction}), 
+ * undo adds the inverse of the last action's operations in reverse order 
+ * (so the cost of undo is the size of the action, the game is never replayed) 
+ * and redo adds the inverse of the inverses
+ * <p>
+ * each {@link GameContext} owns a single operation manager
+ * <p>
  * contains Operation subclasses
  * 
  * @author Amit Portnoy
@@ -28,35 +36,209 @@ import com.cardsForest.platform.Game;
  */
 public final class OperationManager {
 
+	/** the game the operations are performed in */
+	private final GameContext context;
 	/** log of operations occurred during logic phase
 	 * (so we can retrace them at display phase) */
-	static List<Operation> log = new ArrayList<Operation>();
+	private final OperationLog log;
+	
+	/** operations of the current action (not yet in the history) */
+	private final List<Operation> pending;
+	/** actions that can be undone (last action at the end) */
+	private final List<Operation[]> undoHistory;
+	/** inverses of the undone actions (last undone at the end) */
+	private final List<Operation[]> redoHistory;
+	/** if false added operations are not recorded in the history */
+	private boolean recording;
 	
 	/**
-	 *  static class behavior:
-	 * @throws UnsupportedOperationException on creation
+	 * create a new operation manager 
+	 * (created by {@link GameContext})
+	 * @param context the game the operations are performed in
 	 */
-	OperationManager(){throw new UnsupportedOperationException();}
+	OperationManager(GameContext context){
+		this.context = context;
+		log = new OperationLog();
+		pending = new ArrayList<Operation>();
+		undoHistory = new ArrayList<Operation[]>();
+		redoHistory = new ArrayList<Operation[]>();
+		recording = true;
+	}
 	
 	/**
 	 * add a new operation to log
 	 * and perform the logic phase immediately 
+	 * <p>
+	 * operations without a display phase (headless) are not logged 
+	 * (but are recorded in the history)
 	 * @param o the operation to add
 	 */
-	public static void add(Operation o){
+	public void add(Operation o){
 		o.doLogic();
-		log.add(o);
+		if (recording){
+			pending.add(o);
+		}
+		if (o.hasDisplay()){
+			log.add(o);
+		}
 	}
 	
 	/**
-	 * do the display phase of the operations in the log
+	 * add a group of operations (in order), 
+	 * same as adding each operation but the log only makes room once
+	 * (used by paths that create many operations, e.g. a deal)
+	 * @param operations the operations to add
 	 */
-	public static void doDisplayOperations(){
-		while (!log.isEmpty()){
-			Operation o = log.remove(0);
-			o.doDisplay();
+	public void add(Operation... operations){
+		log.ensureCapacity(log.size() + operations.length);
+		for (Operation o : operations){
+			add(o);
 		}
 	}
+	
+	/**
+	 * do the display phase of the operations in the log 
+	 * (in a single pass, oldest first)
+	 * <p>
+	 * if the game draws motions the whole log is drawn as a single {@link MotionGroup}
+	 * (so card moves share one short timeline) that is handed to the game's {@link MotionDrawer},
+	 * the drawer may still be drawing earlier display phases, 
+	 * this phase's changes of a stack are displayed after theirs
+	 */
+	public void doDisplayOperations(){
+		Operation o;
+		MotionDrawer drawer = context.getMotionDrawer();
+		if (drawer != null && !log.isEmpty()){
+			MotionGroup group = new MotionGroup();
+			while ((o = log.poll()) != null){
+				group.add(o, isAnimated(o));
+			}
+			drawer.drawMotion(group);
+		} else {
+			while ((o = log.poll()) != null){
+				o.doDisplay();
+			}
+		}
+		log.trim();
+	}
+	
+	/**
+	 * @return true if the operation is a card move drawn as an animation
+	 */
+	private static boolean isAnimated(Operation o){
+		return o instanceof MoveToOperation 
+				&& ((MoveToOperation) o).getMotionDrawer() != null;
+	}
+	
+	/**
+	 * end the current action: 
+	 * the operations added since the previous action are undone together
+	 * <p>
+	 * a new action clears the redo history
+	 */
+	public void endAction(){
+		if (pending.isEmpty()){
+			return;
+		}
+		undoHistory.add(pending.toArray(new Operation[pending.size()]));
+		pending.clear();
+		redoHistory.clear();
+	}
+	
+	/**
+	 * undo the last action (the current action is ended first)
+	 * @return false if there was nothing to undo
+	 */
+	public boolean undo(){
+		endAction();
+		if (undoHistory.isEmpty()){
+			return false;
+		}
+		redoHistory.add(invert(undoHistory.remove(undoHistory.size() - 1)));
+		return true;
+	}
+	
+	/**
+	 * redo the last undone action
+	 * @return false if there was nothing to redo
+	 */
+	public boolean redo(){
+		endAction();
+		if (redoHistory.isEmpty()){
+			return false;
+		}
+		undoHistory.add(invert(redoHistory.remove(redoHistory.size() - 1)));
+		return true;
+	}
+	
+	/**
+	 * @return true if there is an action to undo
+	 */
+	public boolean canUndo(){
+		return !pending.isEmpty() || !undoHistory.isEmpty();
+	}
+	
+	/**
+	 * @return true if there is an action to redo
+	 */
+	public boolean canRedo(){
+		return pending.isEmpty() && !redoHistory.isEmpty();
+	}
+	
+	/**
+	 * forget all actions (e.g. after a new deal)
+	 */
+	public void clearHistory(){
+		pending.clear();
+		undoHistory.clear();
+		redoHistory.clear();
+	}
+	
+	/**
+	 * add the inverses of an action's operations (in reverse order)
+	 * without recording them
+	 * @param action the action to invert
+	 * @return the inverse action
+	 */
+	private Operation[] invert(Operation[] action){
+		Operation[] inverse = new Operation[action.length];
+		recording = false;
+		log.ensureCapacity(log.size() + action.length);
+		for (int i = 0; i < action.length; i++){
+			inverse[i] = action[action.length - 1 - i].inverse();
+			add(inverse[i]);
+		}
+		recording = true;
+		return inverse;
+	}
+	
+	/**
+	 * used by {@link Selection}, moves to and from the selection's stack are not recorded 
+	 * @param recording if false added operations are not recorded
+	 * @return the previous value
+	 */
+	boolean setRecording(boolean recording){
+		boolean previous = this.recording;
+		this.recording = recording;
+		return previous;
+	}
+	
+	/**
+	 * @return number of operations in the current action
+	 */
+	int pendingSize(){
+		return pending.size();
+	}
+	
+	/**
+	 * record an operation that was already performed 
+	 * (see {@link Selection})
+	 * @param index position in the current action
+	 * @param o the operation
+	 */
+	void record(int index, Operation o){
+		pending.add(index, o);
+	}
 
 	
 	
@@ -66,26 +248,62 @@ public final class OperationManager {
 	
 	/**
 	 * shuffle all the cards in a stack 
-	 * (delegate to {@link Collections}' shuffle)
+	 * (same permutation as {@link Collections}' shuffle using the game's generator)
 	 */
 	public static final class ShuffleOperation extends Operation {
 
 		ArrayList<Card> tempCards;
+		/** the card at index i came from index from[i] (for the inverse) */
+		int[] from;
+		/** the generator's state before the shuffle */
+		long previousRandom;
 		
 		public ShuffleOperation(Stack src) {
 			super(src);
-			
-			tempCards = new ArrayList<Card>();
+		}
+		
+		@Override
+		protected void beforeLogic(){
+			previousRandom = context.getRandom().getState();
+		}
+		
+		/**
+		 * the inverse puts every card back in its previous place
+		 * and restores the generator's state
+		 */
+		@Override
+		public Operation inverse(){
+			//the card at i goes back to where it was before the shuffle
+			return new ReorderOperation(src, from, previousRandom);
 		}
 		
 		@Override
 		protected void action(List<Card> cards){
-			Collections.shuffle(cards);
+			//Collections' shuffle, remembering where each card came from
+			Random random = context.getRandom();
+			int size = cards.size();
+			from = new int[size];
+			for (int i = 0; i < size; i++){
+				from[i] = i;
+			}
+			for (int i = size; i > 1; i--){
+				int j = random.nextInt(i);
+				cards.set(j, cards.set(i-1, cards.get(j)));
+				int temp = from[i-1];
+				from[i-1] = from[j];
+				from[j] = temp;
+			}
+			
+			if (!hasDisplay()){
+				//headless, no one will need a copy
+				return;
+			}
 			
 			//save the shuffled cards
 			//TODO: improve this, by remembering random key
 			//of the shuffle and trace it to sprite's cards
 			//instead of replacing objects
+			tempCards = new ArrayList<Card>(cards.size());
 			for(Card card : cards){
 				tempCards.add(new Card(card));
 			}
@@ -95,6 +313,7 @@ public final class OperationManager {
 		public void doDisplay(){
 			//set the shuffled cards to sprite
 			sprite.cards = tempCards;
+			sprite.updateBounds();
 		}
 	}
 	
@@ -105,10 +324,23 @@ public final class OperationManager {
 	 */
 	public static final class ClearOperation extends Operation {
 
+		/** the removed cards (for the inverse) */
+		List<Card> removed;
+		
 		public ClearOperation(Stack src) {
 			super(src);
 		}
 		
+		@Override
+		protected void beforeLogic(){
+			removed = new ArrayList<Card>(cards);
+		}
+		
+		@Override
+		public Operation inverse(){
+			return new RestoreOperation(src, removed);
+		}
+		
 		@Override
 		protected void action(List<Card> cards){
 			cards.clear();
@@ -127,6 +359,16 @@ public final class OperationManager {
 			super(src);
 		}
 		
+		@Override
+		protected void afterLogic(){
+			updateRuns(src, cards.size()-1);
+		}
+		
+		@Override
+		public Operation inverse(){
+			return new FlipTopOperation(src);
+		}
+		
 		@Override
 		protected void action(List<Card> cards){
 			if (!cards.isEmpty()){
@@ -144,12 +386,24 @@ public final class OperationManager {
 	public static final class SetAllFaceUpOperation extends Operation {
 
 		boolean faceUp;
+		/** faceUp of each card before the operation (for the inverse) */
+		boolean[] previous;
 		
 		public SetAllFaceUpOperation(Stack src, boolean faceUp) {
 			super(src);
 			this.faceUp = faceUp;
 		}
 		
+		@Override
+		protected void beforeLogic(){
+			previous = faceUps(cards);
+		}
+		
+		@Override
+		public Operation inverse(){
+			return new SetFaceUpOperation(src, previous);
+		}
+		
 		@Override
 		protected void action(List<Card> cards){
 			for(Card card : cards){
@@ -168,12 +422,20 @@ public final class OperationManager {
 		Stack dst;
 		int num;
 		boolean immediate;
+		/** size of dst before the logic phase */
+		int dstSize;
 		
 		List<Card> dstCards;
 
 		
+		/**
+		 * @throws IllegalArgumentException if the stacks belong to different games
+		 */
 		public MoveToOperation(Stack src, Stack dst, int num, boolean immediate) {
 			super(src);
+			if (src.getContext() != dst.getContext()){
+				throw new IllegalArgumentException("can't move cards between different games");
+			}
 			this.dst = dst;
 			this.num = num;
 			this.immediate = immediate;
@@ -182,6 +444,22 @@ public final class OperationManager {
 			
 		}
 		
+		@Override
+		public Operation inverse(){
+			return new MoveToOperation(dst, src, num, immediate);
+		}
+		
+		@Override
+		protected void beforeLogic(){
+			dstSize = dstCards.size();
+		}
+		
+		@Override
+		protected void afterLogic(){
+			//src only lost its top, its other runs did not change
+			updateRuns(dst, dstSize);
+		}
+		
 		@Override
 		protected void action(List<Card> cards){
 			List<Card> view = cards.subList(cards.size()- num, cards.size());
@@ -189,13 +467,24 @@ public final class OperationManager {
 			view.clear();
 		}
 		
+		/**
+		 * @return the drawer of the move's animation (null if the move is not animated)
+		 */
+		MotionDrawer getMotionDrawer(){
+			return (immediate || !hasDisplay())? null : context.getMotionDrawer();
+		}
+		
 		@Override
 		public void doDisplay(){
-			if (immediate){
+			if (!hasDisplay()){
+				return;
+			}
+			MotionDrawer drawer = getMotionDrawer();
+			if (drawer == null){
 				dstCards = dst.getSprite().cards;
 				action(sprite.cards);
 			} else {
-				Game.drawMotion(new CardMoveAnimation(
+				drawer.drawMotion(new CardMoveAnimation(
 						src,
 						dst,
 						num));
@@ -204,4 +493,154 @@ public final class OperationManager {
 			dst.getSprite().updateBounds();
 		}
 	}
+	
+	/**
+	 * reorder the cards of a stack 
+	 * (inverse of {@link ShuffleOperation}, also sets the generator's state)
+	 * @author Amit Portnoy
+	 */
+	public static final class ReorderOperation extends Operation {
+		
+		/** the card at index i moves to index order[i] */
+		int[] order;
+		/** the generator's state to set */
+		long random;
+		/** the generator's state before the operation (for the inverse) */
+		long previousRandom;
+		
+		/**
+		 * @param src the stack to reorder
+		 * @param order the card at index i moves to index order[i]
+		 * @param random state to set to the game's generator
+		 */
+		public ReorderOperation(Stack src, int[] order, long random) {
+			super(src);
+			this.order = order;
+			this.random = random;
+		}
+		
+		@Override
+		protected void beforeLogic(){
+			previousRandom = context.getRandom().getState();
+			context.getRandom().setState(random);
+		}
+		
+		@Override
+		protected void action(List<Card> cards){
+			Card[] reordered = new Card[order.length];
+			for (int i = 0; i < order.length; i++){
+				reordered[order[i]] = cards.get(i);
+			}
+			for (int i = 0; i < order.length; i++){
+				cards.set(i, reordered[i]);
+			}
+		}
+		
+		@Override
+		public Operation inverse(){
+			int[] back = new int[order.length];
+			for (int i = 0; i < order.length; i++){
+				back[order[i]] = i;
+			}
+			return new ReorderOperation(src, back, previousRandom);
+		}
+	}
+	
+	/**
+	 * put back the cards removed by a clear (inverse of {@link ClearOperation}) 
+	 * @author Amit Portnoy
+	 */
+	public static final class RestoreOperation extends Operation {
+		
+		/** the cards to put back */
+		List<Card> restored;
+		/** copies of the cards for the display phase */
+		List<Card> tempCards;
+		
+		/**
+		 * @param src an empty stack
+		 * @param restored the cards to put back
+		 */
+		public RestoreOperation(Stack src, List<Card> restored) {
+			super(src);
+			this.restored = restored;
+		}
+		
+		@Override
+		protected void action(List<Card> cards){
+			cards.addAll(restored);
+			
+			if (!hasDisplay()){
+				return;
+			}
+			//the cards may change before the display phase
+			tempCards = new ArrayList<Card>(restored.size());
+			for(Card card : restored){
+				tempCards.add(new Card(card));
+			}
+		}
+		
+		@Override
+		public void doDisplay(){
+			if (hasDisplay()){
+				sprite.cards.addAll(tempCards);
+				sprite.updateBounds();
+			}
+		}
+		
+		@Override
+		public Operation inverse(){
+			return new ClearOperation(src);
+		}
+	}
+	
+	/**
+	 * set the faceUp property of each of the stack's cards 
+	 * (inverse of {@link SetAllFaceUpOperation})
+	 * @author Amit Portnoy
+	 */
+	public static final class SetFaceUpOperation extends Operation {
+		
+		/** faceUp of each card */
+		boolean[] faceUp;
+		/** faceUp of each card before the operation (for the inverse) */
+		boolean[] previous;
+		
+		/**
+		 * @param src the stack
+		 * @param faceUp faceUp of each card (same size as the stack)
+		 */
+		public SetFaceUpOperation(Stack src, boolean[] faceUp) {
+			super(src);
+			this.faceUp = faceUp;
+		}
+		
+		@Override
+		protected void beforeLogic(){
+			previous = faceUps(cards);
+		}
+		
+		@Override
+		protected void action(List<Card> cards){
+			for (int i = 0; i < faceUp.length; i++){
+				cards.get(i).setFaceUp(faceUp[i]);
+			}
+		}
+		
+		@Override
+		public Operation inverse(){
+			return new SetFaceUpOperation(src, previous);
+		}
+	}
+	
+	/**
+	 * @return faceUp of each card
+	 */
+	static boolean[] faceUps(List<Card> cards){
+		boolean[] faceUps = new boolean[cards.size()];
+		for (int i = 0; i < faceUps.length; i++){
+			faceUps[i] = cards.get(i).isFaceUp();
+		}
+		return faceUps;
+	}
 }
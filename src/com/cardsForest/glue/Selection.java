@@ -11,7 +11,7 @@ import com.cardsForest.foundations.Stack;
 
 
 /**
- * manages the current selection got by user (singleton)
+ * manages the current selection got by user (one per {@link GameContext})
  * <p>
  * 
  * - {@link com.cardsForest.logic.Behavior} decides when the select a group of cards <br>
@@ -34,33 +34,29 @@ public class Selection {
 	/** the source of current selection (stack is taken from src) */
 	public Stack src;
 	
+	/** moves to and from the selection's stack are not recorded in the undo history,
+	 * a completed selection is recorded as a single move from src */
+	private final OperationManager operations;
+	/** index of the selection's move in the current action of the history */
+	private int historyIndex;
+	
 	/** start position at selection time */
 	int x,y;	 
 	/** offset from start position to draw (updated by {@Drag} */
 	Point offset;
 	
-	/** singleton instance */
-	static Selection selection;
-	
 	/**
-	 * initialize the selection
+	 * initialize the selection (created by {@link GameContext})
+	 * @param context the game this selection belongs to
 	 */
-	private Selection(){
+	Selection(GameContext context){
 		src = null;
-		stack = Stack.newEmptyStack();
-		stack.getSprite().spread = true;//TODO may have type of sprite extending from stackSprite
-		offset = new Point();
-	}
-	
-	/**
-	 * get the single instance of the selection
-	 * @return singleton instance
-	 */
-	public static Selection get(){
-		if (selection == null){
-			selection = new Selection();
+		operations = context.getOperationManager();
+		stack = Stack.newEmptyStack(context);
+		if (!stack.isHeadless()){
+			stack.getSprite().spread = true;//TODO may have type of sprite extending from stackSprite
 		}
-		return selection;
+		offset = new Point();
 	}
 	
 	/**
@@ -79,7 +75,15 @@ public class Selection {
 		this.src = src;
 		
 		//move cards to selection immediately
+		boolean recording = operations.setRecording(false);
 		src.moveTo(stack,src.getCards().size()-startIndex,true);
+		operations.setRecording(recording);
+		historyIndex = operations.pendingSize();
+		
+		if (stack.isHeadless()){
+			//no position to remember
+			return;
+		}
 		
 		//set starting position to be where source cards are
 		stack.getSprite().translateTo(src.getSprite(),startIndex);
@@ -101,13 +105,22 @@ public class Selection {
 			return; 
 		}
 		
+		int num = stack.getCards().size();
+		boolean recording = operations.setRecording(false);
 		if (dst != null){
 			//move to destination
-			stack.moveTo(dst,stack.getCards().size());
+			stack.moveTo(dst,num);
 		}else{
 			//cancel selection
 			//move back to source
-			stack.moveTo(src,stack.getCards().size());		
+			stack.moveTo(src,num);		
+		}
+		operations.setRecording(recording);
+		if (recording && dst != null && dst != src){
+			//record as a move from the source, in place of the selecting move
+			//(operations done on src while selected, e.g. flip, come after it)
+			operations.record(historyIndex, 
+					new OperationManager.MoveToOperation(src, dst, num, false));
 		}
 		
 		//reset globals
@@ -120,7 +133,7 @@ public class Selection {
 	 * @return true if selection is available
 	 */
 	public boolean isAvailable(){
-		return selection.src != null;
+		return src != null;
 	}
 	
 	/**
@@ -162,8 +175,15 @@ public class Selection {
 	 * @param y
 	 */
 	public void setOffset(int x, int y) {
+		if (offset.x == x && offset.y == y){
+			return;
+		}
 		offset.x = x;
 		offset.y = y;
+		//move the sprite now so its dirty area is known before it is drawn
+		stack.getSprite().x = this.x + x;
+		stack.getSprite().y = this.y + y;
+		stack.getSprite().updateBounds();
 	}
 
 	/**
@@ -9,15 +9,20 @@ import java.awt.image.RescaleOp;
  * wrapper around an image <br>
  * currently only used for cards face images, <Br>
  * possibly this will contain more data later
+ * <p>
+ * the image may be a region of a larger sheet (see {@link CardSpriteStore}'s atlas),
+ * all the sprites of a sheet then draw from the same two images
  * 
  * @author Amit Portnoy
  *
  */
 public class Sprite {
-	/** sprite's image */
-	private BufferedImage image;
-	/** selection variant of the image */
-	private BufferedImage selectedImage;
+	/** sprite's image (or the sheet that contains it) and its selection variant */
+	private final SpriteSheet sheet;
+	/** position of the sprite within the image */
+	private final int sx, sy;
+	/** size of the sprite */
+	private final int width, height;
 	
 	/**
 	 * create a new sprite
@@ -25,7 +30,31 @@ public class Sprite {
 	 * @param image the image to be encapsulated within the sprite
 	 */
 	public Sprite(BufferedImage image) {
-		this.image = image;
+		this(new SpriteSheet(image, selectionVariant(image)), 0, 0, image.getWidth(), image.getHeight());
+	}
+	
+	/**
+	 * create a new sprite from a region of a sheet
+	 * @param sheet the sheet
+	 * @param sx x coordinate of the sprite within the sheet
+	 * @param sy y coordinate of the sprite within the sheet
+	 * @param width sprite width
+	 * @param height sprite height
+	 */
+	Sprite(SpriteSheet sheet, int sx, int sy, int width, int height) {
+		this.sheet = sheet;
+		this.sx = sx;
+		this.sy = sy;
+		this.width = width;
+		this.height = height;
+	}
+	
+	/**
+	 * create the selection variant of an image (yellow filter)
+	 * @param image the image
+	 * @return the filtered copy
+	 */
+	public static BufferedImage selectionVariant(BufferedImage image) {
 		float scale[] = {1.f,1.f,0.3f};
 		float offset[] = {0,0,-0};
 		
@@ -33,11 +62,19 @@ public class Sprite {
 		BufferedImageOp op = new RescaleOp(scale,offset,null);
 		
 		//create the selection variant
-		selectedImage = new BufferedImage(image.getWidth(),image.getHeight()
+		BufferedImage selectedImage = new BufferedImage(image.getWidth(),image.getHeight()
 						,image.getType());
 		
 		//apply the filter to the variant
 		op.filter(image,selectedImage);
+		return selectedImage;
+	}
+
+	/**
+	 * @return the image the sprite draws from (and its selection variant)
+	 */
+	SpriteSheet getSheet() {
+		return sheet;
 	}
 
 	/**
@@ -45,7 +82,7 @@ public class Sprite {
 	 * @return the width
 	 */
 	public int getWidth() {
-		return image.getWidth();
+		return width;
 	}
 
 	/**
@@ -53,7 +90,7 @@ public class Sprite {
 	 * @return the height
 	 */
 	public int getHeight() {
-		return image.getHeight();
+		return height;
 	}
 	
 	/**
@@ -65,10 +102,25 @@ public class Sprite {
 	 */
 	public void draw(Graphics g,int x,int y, boolean useSelected) {
 		if (useSelected){
-			g.drawImage(selectedImage, x, y, null);
+			g.drawImage(sheet.getSelected(), x, y, x+width, y+height, sx, sy, sx+width, sy+height, null);
 	//		g.drawImage(image, x-5, y+5, null);//TODO shadow
 		}
 		else
-			g.drawImage(image,x,y,null);
+			g.drawImage(sheet.getImage(), x, y, x+width, y+height, sx, sy, sx+width, sy+height, null);
+	}
+	
+	/**
+	 * draw only the top rows of this sprite
+	 * (the part of a card that is not covered by the card above it in a spread stack)
+	 * @param g graphics to draw on
+	 * @param x x coordinate (for left bound) 
+	 * @param y y coordinate (for top bound)
+	 * @param strip number of rows to draw (at most the sprite's height)
+	 * @param useSelected (if true draw the selection variant of the sprite)
+	 */
+	public void drawStrip(Graphics g,int x,int y,int strip, boolean useSelected) {
+		int rows = Math.min(strip, height);
+		BufferedImage image = useSelected? sheet.getSelected() : sheet.getImage();
+		g.drawImage(image, x, y, x+width, y+rows, sx, sy, sx+width, sy+rows, null);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,336 @@
+package com.cardsForest.glue;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.PackedColorModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * persistent cache of decoded images
+ * (used by {@link CardSpriteStore} so a launch does not have to decode the card images again)
+ * <p>
+ * an entry holds an image's pixels in the layout of the screen's compatible images,
+ * it is memory mapped and copied straight into a new compatible image <br>
+ * entries are keyed by a hash of the image resource and of the pixel layouts of the screen's
+ * compatible images (their color and sample models, described field by field),
+ * a changed image or a different screen gets a new entry (the old one is deleted) <br>
+ * an entry also records its image's type and alpha format, a read checks them again
+ * <p>
+ * the cache is in {@code ${user.home}/.cardsForest/sprites}
+ * (or in the directory of the {@code cardsForest.spriteCache} system property),
+ * if it can't be read or written (e.g. in a sandboxed applet) images are just decoded
+ *
+ * @see CardSpriteStore
+ * @author Amit Portnoy
+ */
+final class SpriteCache {
+
+	/** first int of an entry */
+	static final int MAGIC = 0x43465343;
+	/** version of the entry layout */
+	static final int VERSION = 2;
+	/** length of a key (SHA-1) */
+	static final int KEY_LENGTH = 20;
+	/** size of an entry's header */
+	static final int HEADER_SIZE = 4 * 2 + KEY_LENGTH + 4 * 7;
+	/** suffix of entry files */
+	static final String SUFFIX = ".pixels";
+
+	/**
+	 * static class behavior
+	 */
+	private SpriteCache(){
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * read an image from the cache
+	 * @param name name of the image resource
+	 * @param resource the resource's content
+	 * @return a compatible image or null if it is not in the cache
+	 */
+	static BufferedImage load(String name, byte[] resource){
+		try {
+			byte[] key = key(resource);
+			File file = entry(name, key);
+			if (!file.isFile()){
+				return null;
+			}
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = raf.getChannel();
+				MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				return read(in, key);
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			return null;
+		} catch (SecurityException e) {
+			return null;
+		} catch (RuntimeException e) {
+			//corrupted entry
+			return null;
+		}
+	}
+
+	/**
+	 * write an image to the cache (replaces the resource's older entries)
+	 * @param name name of the image resource
+	 * @param resource the resource's content
+	 * @param image the decoded compatible image
+	 */
+	static void store(String name, byte[] resource, BufferedImage image){
+		try {
+			byte[] key = key(resource);
+			File file = entry(name, key);
+			File dir = file.getParentFile();
+			if (!dir.isDirectory() && !dir.mkdirs()){
+				return;
+			}
+
+			//older entries of the resource
+			String prefix = prefix(name);
+			File[] old = dir.listFiles();
+			if (old != null){
+				for (File f : old){
+					if (f.getName().startsWith(prefix) && !f.equals(file)){
+						f.delete();
+					}
+				}
+			}
+
+			//write to a temporary file first so a reader never sees a partial entry
+			File temp = File.createTempFile(prefix, ".tmp", dir);
+			RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+			try {
+				FileChannel channel = raf.getChannel();
+				ByteBuffer out = write(image, key);
+				while (out.hasRemaining()){
+					channel.write(out);
+				}
+			} finally {
+				raf.close();
+			}
+			if (!temp.renameTo(file)){
+				temp.delete();
+			}
+		} catch (IOException e) {
+			//not cached
+		} catch (SecurityException e) {
+			//not cached
+		}
+	}
+
+	/**
+	 * @return a new compatible image with the pixels of an entry (null if the entry does not match)
+	 */
+	private static BufferedImage read(ByteBuffer in, byte[] key){
+		if (in.getInt() != MAGIC || in.getInt() != VERSION){
+			return null;
+		}
+		byte[] entryKey = new byte[KEY_LENGTH];
+		in.get(entryKey);
+		if (!Arrays.equals(key, entryKey)){
+			return null;
+		}
+		int width = in.getInt();
+		int height = in.getInt();
+		int transparency = in.getInt();
+		int type = in.getInt();
+		boolean premultiplied = in.getInt() != 0;
+		int transferType = in.getInt();
+		int elements = in.getInt();
+
+		BufferedImage image = CardSpriteStore.compatibleImage(width, height, transparency);
+		WritableRaster raster = image.getRaster();
+		if (image.getType() != type || image.isAlphaPremultiplied() != premultiplied
+				|| raster.getTransferType() != transferType || raster.getNumDataElements() != elements){
+			//the pixels would be read in another format
+			return null;
+		}
+		int length = width * height * elements;
+		Object data;
+		switch (transferType){
+		case DataBuffer.TYPE_INT:
+			int[] ints = new int[length];
+			in.asIntBuffer().get(ints);
+			data = ints;
+			break;
+		case DataBuffer.TYPE_USHORT:
+		case DataBuffer.TYPE_SHORT:
+			short[] shorts = new short[length];
+			in.asShortBuffer().get(shorts);
+			data = shorts;
+			break;
+		case DataBuffer.TYPE_BYTE:
+			byte[] bytes = new byte[length];
+			in.get(bytes);
+			data = bytes;
+			break;
+		default:
+			return null;
+		}
+		//copies the pixels (the image stays managed by Java2D)
+		raster.setDataElements(0, 0, width, height, data);
+		return image;
+	}
+
+	/**
+	 * @return an entry with the pixels of the image
+	 */
+	private static ByteBuffer write(BufferedImage image, byte[] key){
+		WritableRaster raster = image.getRaster();
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int transferType = raster.getTransferType();
+		int elements = raster.getNumDataElements();
+		Object data = raster.getDataElements(0, 0, width, height, null);
+
+		int length = width * height * elements;
+		int elementSize = DataBuffer.getDataTypeSize(transferType) / 8;
+		ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + length * elementSize);
+		out.putInt(MAGIC).putInt(VERSION).put(key);
+		out.putInt(width).putInt(height).putInt(image.getTransparency());
+		out.putInt(image.getType()).putInt(image.isAlphaPremultiplied()? 1 : 0);
+		out.putInt(transferType).putInt(elements);
+		switch (transferType){
+		case DataBuffer.TYPE_INT:
+			out.asIntBuffer().put((int[]) data);
+			break;
+		case DataBuffer.TYPE_USHORT:
+		case DataBuffer.TYPE_SHORT:
+			out.asShortBuffer().put((short[]) data);
+			break;
+		case DataBuffer.TYPE_BYTE:
+			out.put((byte[]) data);
+			break;
+		default:
+			throw new IllegalArgumentException("unsupported transfer type " + transferType);
+		}
+		out.position(0);
+		return out;
+	}
+
+	/**
+	 * @return the key of a resource on this screen
+	 * (hash of its content and of the screen's pixel layouts)
+	 */
+	static byte[] key(byte[] resource){
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digest.update(resource);
+			digest.update(configuration().getBytes(Charset.forName("UTF-8")));
+			return digest.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return description of the pixel layouts of the screen's compatible images
+	 * (the same on every launch on the same screen)
+	 */
+	private static String configuration(){
+		StringBuilder sb = new StringBuilder();
+		int[] transparencies = {Transparency.OPAQUE, Transparency.BITMASK, Transparency.TRANSLUCENT};
+		for (int transparency : transparencies){
+			describe(sb, CardSpriteStore.compatibleImage(1, 1, transparency));
+			sb.append('|');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * append the pixel layout of an image 
+	 * (only structural fields, e.g. a color model's toString has identity hashes
+	 * and leaves out whether alpha is premultiplied)
+	 */
+	private static void describe(StringBuilder sb, BufferedImage image){
+		ColorModel cm = image.getColorModel();
+		ColorSpace cs = cm.getColorSpace();
+		sb.append(image.getType());
+		sb.append(',').append(cm.getClass().getName());
+		sb.append(',').append(cm.getPixelSize());
+		sb.append(',').append(Arrays.toString(cm.getComponentSize()));
+		if (cm instanceof PackedColorModel){
+			sb.append(',').append(Arrays.toString(((PackedColorModel) cm).getMasks()));
+		}
+		if (cm instanceof IndexColorModel){
+			IndexColorModel icm = (IndexColorModel) cm;
+			int[] rgbs = new int[icm.getMapSize()];
+			icm.getRGBs(rgbs);
+			sb.append(',').append(Arrays.hashCode(rgbs));
+		}
+		sb.append(',').append(cm.hasAlpha());
+		sb.append(',').append(cm.isAlphaPremultiplied());
+		sb.append(',').append(cm.getTransferType());
+		sb.append(',').append(cs.getType());
+		sb.append(',').append(cs.isCS_sRGB());
+
+		SampleModel sm = image.getSampleModel();
+		sb.append(',').append(sm.getClass().getName());
+		sb.append(',').append(sm.getNumDataElements());
+		if (sm instanceof ComponentSampleModel){
+			//order of the bands (e.g. ABGR or RGBA bytes)
+			ComponentSampleModel csm = (ComponentSampleModel) sm;
+			sb.append(',').append(csm.getPixelStride());
+			sb.append(',').append(Arrays.toString(csm.getBandOffsets()));
+			sb.append(',').append(Arrays.toString(csm.getBankIndices()));
+		}
+		if (sm instanceof SinglePixelPackedSampleModel){
+			sb.append(',').append(Arrays.toString(((SinglePixelPackedSampleModel) sm).getBitMasks()));
+		}
+		if (sm instanceof MultiPixelPackedSampleModel){
+			sb.append(',').append(((MultiPixelPackedSampleModel) sm).getPixelBitStride());
+		}
+	}
+
+	/**
+	 * @return the file of an entry
+	 */
+	private static File entry(String name, byte[] key){
+		StringBuilder sb = new StringBuilder(prefix(name));
+		for (byte b : key){
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+			sb.append(Character.forDigit(b & 0xf, 16));
+		}
+		return new File(directory(), sb.append(SUFFIX).toString());
+	}
+
+	/**
+	 * @return start of the file names of a resource's entries
+	 */
+	private static String prefix(String name){
+		return name.replaceAll("[^A-Za-z0-9.]", "_") + "-";
+	}
+
+	/**
+	 * @return the cache directory
+	 */
+	private static File directory(){
+		String dir = System.getProperty("cardsForest.spriteCache");
+		if (dir != null){
+			return new File(dir);
+		}
+		return new File(new File(System.getProperty("user.home"), ".cardsForest"), "sprites");
+	}
+}
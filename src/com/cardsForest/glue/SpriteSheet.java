@@ -0,0 +1,57 @@
+package com.cardsForest.glue;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * an image that sprites draw from and its selection variant
+ * <p>
+ * the selection variant may be created when it is first needed
+ * (the store creates it in the background, see {@link CardSpriteStore})
+ *
+ * @see Sprite
+ * @author Amit Portnoy
+ */
+final class SpriteSheet {
+
+	/** the image */
+	private final BufferedImage image;
+	/** selection variant of the image (null until created) */
+	private volatile BufferedImage selected;
+
+	/**
+	 * @param image the image (its selection variant is created when needed)
+	 */
+	SpriteSheet(BufferedImage image){
+		this(image, null);
+	}
+
+	/**
+	 * @param image the image
+	 * @param selected selection variant of the image (null to create it when needed)
+	 */
+	SpriteSheet(BufferedImage image, BufferedImage selected){
+		this.image = image;
+		this.selected = selected;
+	}
+
+	BufferedImage getImage(){
+		return image;
+	}
+
+	/**
+	 * @return the selection variant (created if needed)
+	 */
+	BufferedImage getSelected(){
+		BufferedImage s = selected;
+		if (s == null){
+			synchronized (this){
+				s = selected;
+				if (s == null){
+					s = CardSpriteStore.compatibleCopy(Sprite.selectionVariant(image));
+					selected = s;
+				}
+			}
+		}
+		return s;
+	}
+}
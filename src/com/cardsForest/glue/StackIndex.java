@@ -0,0 +1,255 @@
+package com.cardsForest.glue;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+import com.cardsForest.foundations.Stack;
+
+/**
+ * spatial index of a game's stacks (used for hit testing clicks and drops)
+ * <p>
+ * a uniform grid over the bounds of the stacks' sprites,
+ * each cell lists the stacks whose bounds overlap it (in the order of the game's stacks) <br>
+ * the grid is rebuilt on the next lookup after a sprite's bounds changed
+ * ({@link StackSprite#updateBounds} notifies the index of its sprite)
+ * or after the game's list of stacks changed
+ * <p>
+ * lookups give the same stack as scanning the stacks in order and allocate nothing
+ *
+ * @see com.cardsForest.logic.GameLogic
+ * @author Amit Portnoy
+ */
+public final class StackIndex {
+
+	/** maximum number of cells in the grid (cells grow to stay under it) */
+	static final int MAX_CELLS = 4096;
+
+	/** the indexed list (null until first lookup) */
+	private List<Stack> list;
+	/** size of the list when the grid was built */
+	private int count;
+	/** true if a sprite's bounds changed since the grid was built */
+	private boolean stale;
+
+	/** the indexed stacks (in list order, headless stacks are left out) */
+	private Stack[] stacks = new Stack[0];
+	/** bounds of the indexed stacks */
+	private Rectangle[] bounds = new Rectangle[0];
+	/** number of indexed stacks */
+	private int size;
+
+	/** position of the grid */
+	private int originX, originY;
+	/** size of a cell */
+	private int cellWidth, cellHeight;
+	/** number of cells in each direction */
+	private int columns, rows;
+	/** start of each cell's entries (the entries of cell i end where cell i+1's start) */
+	private int[] cellStart = new int[1];
+	/** stack indices of all cells (ascending in each cell) */
+	private int[] entries = new int[0];
+	/** next free entry of each cell (while filling the cells) */
+	private int[] cellFill = new int[0];
+
+	/** last lookup each stack was visited in (so an overlap is counted once) */
+	private int[] visited = new int[0];
+	/** the current lookup */
+	private int visit;
+
+	/**
+	 * mark the grid as out of date (it is rebuilt on the next lookup)
+	 */
+	void invalidate(){
+		stale = true;
+	}
+
+	/**
+	 * find the first stack that contains a point
+	 * @param stacks the game's stacks
+	 * @param p the point
+	 * @return the first stack in the list whose bounds contain the point (null if none)
+	 */
+	public Stack stackAt(List<Stack> stacks, Point p){
+		update(stacks);
+		if (columns == 0 || p.x < originX || p.y < originY){
+			return null;
+		}
+		int col = (p.x - originX) / cellWidth;
+		int row = (p.y - originY) / cellHeight;
+		if (col >= columns || row >= rows){
+			return null;
+		}
+		int cell = row * columns + col;
+		for (int i = cellStart[cell]; i < cellStart[cell+1]; i++){
+			//entries are in list order, the first is the one a scan would find
+			int s = entries[i];
+			if (bounds[s].contains(p.x, p.y)){
+				return this.stacks[s];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * find the stack that overlaps a rectangle the most
+	 * @param stacks the game's stacks
+	 * @param rect the rectangle (e.g. the bounds of a dragged selection)
+	 * @return the stack with the largest intersection
+	 * (the first in the list if several are as large, null if none intersects)
+	 */
+	public Stack bestOverlap(List<Stack> stacks, Rectangle rect){
+		update(stacks);
+		if (columns == 0 || rect.isEmpty()){
+			return null;
+		}
+		int col0 = Math.max(0, floorDiv(rect.x - originX, cellWidth));
+		int row0 = Math.max(0, floorDiv(rect.y - originY, cellHeight));
+		int col1 = Math.min(columns - 1, floorDiv(rect.x + rect.width - 1 - originX, cellWidth));
+		int row1 = Math.min(rows - 1, floorDiv(rect.y + rect.height - 1 - originY, cellHeight));
+
+		if (++visit == 0){
+			//wrapped around, forget older lookups
+			Arrays.fill(visited, 0);
+			visit = 1;
+		}
+		int best = -1;
+		long max = 0;
+		for (int row = row0; row <= row1; row++){
+			for (int col = col0; col <= col1; col++){
+				int cell = row * columns + col;
+				for (int i = cellStart[cell]; i < cellStart[cell+1]; i++){
+					int s = entries[i];
+					if (visited[s] == visit){
+						continue;
+					}
+					visited[s] = visit;
+					Rectangle b = bounds[s];
+					long w = (long) Math.min(b.x + b.width, rect.x + rect.width) - Math.max(b.x, rect.x);
+					long h = (long) Math.min(b.y + b.height, rect.y + rect.height) - Math.max(b.y, rect.y);
+					if (w <= 0 || h <= 0){
+						continue;
+					}
+					long area = w * h;
+					if (area > max || (area == max && s < best)){
+						max = area;
+						best = s;
+					}
+				}
+			}
+		}
+		return (best == -1)? null : this.stacks[best];
+	}
+
+	/**
+	 * rebuild the grid if it is out of date
+	 */
+	private void update(List<Stack> stacks){
+		if (!stale && list == stacks && count == stacks.size()){
+			return;
+		}
+		list = stacks;
+		count = stacks.size();
+		stale = false;
+
+		//the indexed stacks and the size of the grid
+		if (this.stacks.length < count){
+			this.stacks = new Stack[count];
+			bounds = new Rectangle[count];
+			visited = new int[count];
+		}
+		size = 0;
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		cellWidth = Integer.MAX_VALUE;
+		cellHeight = Integer.MAX_VALUE;
+		for (int i = 0; i < count; i++){
+			Stack stack = stacks.get(i);
+			StackSprite sprite = stack.getSprite();
+			if (sprite == null){
+				//headless stacks are never hit
+				continue;
+			}
+			sprite.index = this;
+			Rectangle b = sprite.getBounds();
+			if (b.isEmpty()){
+				continue;
+			}
+			this.stacks[size] = stack;
+			bounds[size] = b;
+			size++;
+			minX = Math.min(minX, b.x);
+			minY = Math.min(minY, b.y);
+			maxX = Math.max(maxX, b.x + b.width);
+			maxY = Math.max(maxY, b.y + b.height);
+			//cells of the smallest stack's size
+			cellWidth = Math.min(cellWidth, b.width);
+			cellHeight = Math.min(cellHeight, b.height);
+		}
+		if (size == 0){
+			columns = rows = 0;
+			return;
+		}
+		originX = minX;
+		originY = minY;
+		columns = (maxX - minX + cellWidth - 1) / cellWidth;
+		rows = (maxY - minY + cellHeight - 1) / cellHeight;
+		while ((long) columns * rows > MAX_CELLS){
+			cellWidth *= 2;
+			cellHeight *= 2;
+			columns = (maxX - minX + cellWidth - 1) / cellWidth;
+			rows = (maxY - minY + cellHeight - 1) / cellHeight;
+		}
+
+		//count the entries of each cell
+		int cells = columns * rows;
+		if (cellStart.length < cells + 1){
+			cellStart = new int[cells + 1];
+		} else {
+			Arrays.fill(cellStart, 0, cells + 1, 0);
+		}
+		int total = 0;
+		for (int s = 0; s < size; s++){
+			Rectangle b = bounds[s];
+			int c0 = (b.x - originX) / cellWidth, c1 = (b.x + b.width - 1 - originX) / cellWidth;
+			int r0 = (b.y - originY) / cellHeight, r1 = (b.y + b.height - 1 - originY) / cellHeight;
+			for (int row = r0; row <= r1; row++){
+				for (int col = c0; col <= c1; col++){
+					cellStart[row * columns + col + 1]++;
+				}
+			}
+			total += (c1 - c0 + 1) * (r1 - r0 + 1);
+		}
+		for (int cell = 0; cell < cells; cell++){
+			cellStart[cell + 1] += cellStart[cell];
+		}
+
+		//fill the cells (in stack order)
+		if (entries.length < total){
+			entries = new int[total];
+		}
+		if (cellFill.length < cells){
+			cellFill = new int[cells];
+		}
+		System.arraycopy(cellStart, 0, cellFill, 0, cells);
+		for (int s = 0; s < size; s++){
+			Rectangle b = bounds[s];
+			int c0 = (b.x - originX) / cellWidth, c1 = (b.x + b.width - 1 - originX) / cellWidth;
+			int r0 = (b.y - originY) / cellHeight, r1 = (b.y + b.height - 1 - originY) / cellHeight;
+			for (int row = r0; row <= r1; row++){
+				for (int col = c0; col <= c1; col++){
+					entries[cellFill[row * columns + col]++] = s;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a / b rounded down (b must be positive)
+	 */
+	private static int floorDiv(int a, int b){
+		int q = a / b;
+		return (a % b != 0 && a < 0)? q - 1 : q;
+	}
+}
@@ -1,9 +1,13 @@
 package com.cardsForest.glue;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,6 +24,14 @@ import com.cardsForest.foundations.Stack;
  * StackSprite is drawn by absolute position, 
  * the relative position is used only when created by GameLogic
  * it's later updated to absolute position when Game calls StackSprite's updateScreenSize
+ * <p>
+ * in a spread stack only the top card is drawn in full,
+ * a card below it is drawn as the strip that shows above the next card
+ * (unless the next card does not cover the rest of it) <br>
+ * the cards of a spread stack are drawn once into a composite image 
+ * that is redrawn only when the cards it shows change 
+ * (i.e. when an operation that changed the stack is displayed,
+ * moving the sprite, e.g. dragging the selection, keeps it)
  * 
  * @see Stack
  * @see com.cardsForest.platform.Game
@@ -58,6 +70,24 @@ public class StackSprite {
 	
 	/** used to calculate collisions with stack sprite */
 	private Rectangle bounds;
+	/** area the sprite was drawn on when it was last cleaned (see {@code takeDirtyArea}) */
+	private final Rectangle drawn;
+	/** true if the sprite changed since it was last cleaned */
+	private boolean dirty;
+	/** index of the game's stacks that holds this sprite (null if none, see {@link StackIndex}) */
+	StackIndex index;
+	
+	/** 
+	 * the cards of a spread stack drawn as a single image 
+	 * (null until first drawn)
+	 */
+	private BufferedImage composite;
+	/** size of the composite's content (the image may be larger) */
+	private int compositeWidth, compositeHeight;
+	/** sprite of each card the composite shows (face ordinal, -1 for the back) and its selection */
+	private int[] compositeKey = new int[0];
+	/** length of the composite's key */
+	private int compositeSize;
 	
 	/** distance in pixel between two cards in a spread stack */
 	private static final int SPREAD_STEP = 15;
@@ -76,6 +106,8 @@ public class StackSprite {
 		cards = new ArrayList<Card>();
 		
 		bounds = new Rectangle();
+		drawn = new Rectangle();
+		dirty = true;
 	}
 
 	
@@ -135,60 +167,134 @@ public class StackSprite {
 	}
 
 	/**
-	 * draws the stack
+	 * draws the base of the stack (its outline) <br>
+	 * the base does not change while the screen size is the same,
+	 * it is drawn once into the background layer
+	 * (see {@link com.cardsForest.platform.GameCanvas})
+	 * @param g graphics to draw the base on
+	 */
+	public void drawBase(Graphics g) {
+		g.setColor(Color.RED);
+		g.drawRect(x, y, CardSpriteStore.getWidth(), CardSpriteStore.getHeight());
+	}
+	
+	/**
+	 * draws the stack's cards (the base is drawn by {@code drawBase})
 	 * @param g graphics to draw the stack on
 	 * @param useSelected true if stack's cards are selected 
 	 */
 	public void draw(Graphics g, boolean useSelected) {
-		if (!useSelected){
-			//if not selected
-			//draw the base of the stack
-			g.setColor(Color.RED);
-			g.drawRect(x, y, CardSpriteStore.getWidth(), CardSpriteStore.getHeight());
-		}
-		
 		if(cards.isEmpty()){
 			//got nothing else to draw
 			return;
 		}
 		
-		//reference to current card sprite
-		Sprite sprite;
-		
-		if(spread){
+		if(spread && cards.size() > 1){
 			//stack is spread
-			//draw each of the cards in the stack
-			int i = 0;
-			for(Card card : cards){	
-				if(card.isFaceUp()){
-					//take the face's sprite
-					sprite = CardSpriteStore.getSprite(card.getFace());
-				}else{
-					//take the back sprite
-					sprite = CardSpriteStore.getBack();
-				}
-				//draw the sprite with spread offset considered 
-				sprite.draw(g, x, y+SPREAD_STEP*i,useSelected);
-				i++;
-			}
+			//draw the composite of its cards
+			updateComposite(useSelected);
+			g.drawImage(composite, x, y, x+compositeWidth, y+compositeHeight,
+					0, 0, compositeWidth, compositeHeight, null);
 		}else{
-			//stack is not spread
+			//stack is not spread (or has a single card)
 			//draw only the top card
-			Card topCard = cards.get(cards.size()-1); 
-			if(topCard.isFaceUp()){
-				//it's faceUp -> take the face's sprite
-				sprite = CardSpriteStore.getSprite(
-						topCard.getFace());
-			}else{
-				//take the back sprite
-				sprite = CardSpriteStore.getBack();
-			}
-			//draw the sprite
-			sprite.draw(g, x, y, useSelected);
+			spriteOf(cards.get(cards.size()-1)).draw(g, x, y, useSelected);
 		}	
 		
 	}
 	
+	/**
+	 * draws each of the cards of a spread stack
+	 * @param g graphics to draw the cards on
+	 * @param x x coordinate of the stack (for left bound)
+	 * @param y y coordinate of the stack (for top bound)
+	 * @param useSelected true if stack's cards are selected 
+	 */
+	private void drawSpread(Graphics g, int x, int y, boolean useSelected) {
+		int top = cards.size()-1;
+		//reference to current card sprite
+		Sprite sprite = spriteOf(cards.get(0));
+		for(int i = 0; i < top; i++){
+			Sprite above = spriteOf(cards.get(i+1));
+			//draw the sprite with spread offset considered 
+			if (above.getWidth() >= sprite.getWidth() 
+					&& SPREAD_STEP + above.getHeight() >= sprite.getHeight()){
+				//the card above covers all but the strip (cards are opaque)
+				sprite.drawStrip(g, x, y+SPREAD_STEP*i, SPREAD_STEP, useSelected);
+			} else {
+				//part of the card shows beside the card above
+				sprite.draw(g, x, y+SPREAD_STEP*i, useSelected);
+			}
+			sprite = above;
+		}
+		//the top card is drawn in full
+		sprite.draw(g, x, y+SPREAD_STEP*top, useSelected);
+	}
+	
+	/**
+	 * redraw the composite image if it does not show the current cards
+	 * (the image is reused when it is large enough)
+	 * @param useSelected true if stack's cards are selected
+	 */
+	private void updateComposite(boolean useSelected) {
+		//key: the sprite of each card (its face or the back) and the selection
+		int size = cards.size() + 1;
+		if (compositeKey.length < size){
+			//the key changes size anyway
+			compositeKey = new int[Math.max(size, compositeKey.length * 2)];
+		}
+		boolean same = (composite != null && compositeSize == size);
+		for (int i = 0; i < size - 1; i++){
+			Card card = cards.get(i);
+			int k = card.isFaceUp()? card.getFace().ordinal() : -1;
+			same &= (compositeKey[i] == k);
+			compositeKey[i] = k;
+		}
+		int k = useSelected? 1 : 0;
+		same &= (compositeKey[size-1] == k);
+		compositeKey[size-1] = k;
+		compositeSize = size;
+		if (same){
+			return;
+		}
+		
+		//size of the composite
+		int width = 0, height = 0;
+		for (int i = 0; i < cards.size(); i++){
+			Sprite sprite = spriteOf(cards.get(i));
+			width = Math.max(width, sprite.getWidth());
+			height = Math.max(height, SPREAD_STEP*i + sprite.getHeight());
+		}
+		
+		Graphics2D g;
+		if (composite == null || composite.getWidth() < width || composite.getHeight() < height){
+			//cards are opaque, only the gaps beside narrower cards are transparent
+			composite = CardSpriteStore.compatibleImage(width, height + SPREAD_STEP * 4, Transparency.BITMASK);
+			g = composite.createGraphics();
+		} else {
+			g = composite.createGraphics();
+			g.setComposite(AlphaComposite.Clear);
+			g.fillRect(0, 0, compositeWidth, compositeHeight);
+			g.setComposite(AlphaComposite.SrcOver);
+		}
+		compositeWidth = width;
+		compositeHeight = height;
+		drawSpread(g, 0, 0, useSelected);
+		g.dispose();
+	}
+	
+	/**
+	 * @return the sprite a card is drawn with (its face's sprite or the back sprite)
+	 */
+	private static Sprite spriteOf(Card card){
+		if(card.isFaceUp()){
+			//it's faceUp -> take the face's sprite
+			return CardSpriteStore.getSprite(card.getFace());
+		}
+		//take the back sprite
+		return CardSpriteStore.getBack();
+	}
+	
 	/**************************/
 	/* management             */
 	/**************************/
@@ -220,8 +326,15 @@ public class StackSprite {
 	/**
 	 * recalculate the bounds of this stack <br>
 	 * (bounds are calculated using absolute position and card sprite size)
+	 * <p>
+	 * must be called after the sprite's cards or position change, 
+	 * it also marks the sprite as dirty (and its stack index as out of date)
 	 */
 	public void updateBounds(){
+		dirty = true;
+		if (index != null){
+			index.invalidate();
+		}
 		if ((!spread) || cards.size()<=1){
 			//simple stack
 			//just use sprite's bounds
@@ -286,5 +399,30 @@ public class StackSprite {
 		return bounds;
 	}
 	
+	/**
+	 * @return the area a draw of this sprite covers 
+	 * (the bounds and the base's outline, plus a pixel of anti-aliasing)
+	 */
+	public Rectangle getDrawArea() {
+		return new Rectangle(bounds.x - 1, bounds.y - 1, bounds.width + 3, bounds.height + 3);
+	}
+	
+	/**
+	 * take the area that has to be repainted because this sprite changed
+	 * (the area it covered when it was last cleaned and the area it covers now) 
+	 * and mark the sprite as clean
+	 * @return the area to repaint (null if the sprite did not change)
+	 */
+	public Rectangle takeDirtyArea() {
+		if (!dirty){
+			return null;
+		}
+		dirty = false;
+		Rectangle area = getDrawArea();
+		Rectangle dirtyArea = drawn.isEmpty()? new Rectangle(area) : area.union(drawn);
+		drawn.setBounds(area);
+		return dirtyArea;
+	}
+	
 }
 
@@ -1,6 +1,8 @@
 package com.cardsForest.logic;
 
 import com.cardsForest.foundations.Stack;
+import com.cardsForest.glue.GameContext;
+import com.cardsForest.glue.Selection;
 
 /**
  * defines the behavior of {@link Stack} object 
@@ -12,18 +14,39 @@ import com.cardsForest.foundations.Stack;
  */
 public class Behavior {
 
-	static private Behavior defaultBehavior = null;
+	/** the default behavior is stateless and shared by all games */
+	static private final Behavior defaultBehavior = new Behavior();
 	
 	/** provided as input to click methods, 
 	 * signifies that no specific card was clicked */
 	static final int NO_INDEX = -1;
 	
+	/** the game this behavior belongs to
+	 * ({@code null} for the default behavior) */
+	protected final GameContext context;
+	/** short-form for the context's selection */
+	protected final Selection selection;
+	
 	/**
 	 * create a new instance of behavior<br>
 	 * TODO consider <b>protected</b>
 	 */
 	protected Behavior(){
 		//default behavior - do nothing
+		context = null;
+		selection = null;
+	}
+	
+	/**
+	 * create a new instance of behavior
+	 * @param context the game this behavior belongs to
+	 */
+	protected Behavior(GameContext context){
+		if (context == null){
+			throw new NullPointerException();
+		}
+		this.context = context;
+		this.selection = context.getSelection();
 	}
 	
 	/**
@@ -45,6 +68,16 @@ public class Behavior {
 		click(stack,cardIndex);
 	}
 
+	/**
+	 * stacks with this behavior keep the length of their valid run up to date
+	 * (see {@link Stack#getRunLength()})
+	 * @return the rules of the stack's runs ({@code null} if runs are not kept)
+	 */
+	public SequenceChecker getRunChecker(){
+		//default behavior - no runs
+		return null;
+	}
+	
 	/**
 	 * check if this behavior is of the same group as a given behavior
 	 * @param behavior the behavior to compare with
@@ -59,9 +92,6 @@ public class Behavior {
 	 * @return the single instance default behavior object
 	 */
 	public static Behavior getDefault() {
-		if (defaultBehavior == null){
-			defaultBehavior = new Behavior();
-		}
 		return defaultBehavior;
 	}
 }
@@ -0,0 +1,92 @@
+package com.cardsForest.logic;
+
+import com.cardsForest.foundations.Card;
+import com.cardsForest.foundations.Face;
+import com.cardsForest.foundations.PackedCard;
+
+/**
+ * the rules of another {@link SequenceChecker} as precomputed tables 
+ * (created by {@link SequenceChecker#compile()})
+ * <p>
+ * for every face a bit set (long) of the faces that can follow it,
+ * and a bit set of the starters (bit index is the face's ordinal) <br>
+ * so every check is a single table lookup, for {@link Card}s and for packed cards
+ * <p>
+ * the compiled rules must depend only on the cards' faces (not on faceUp)
+ * 
+ * @author Amit Portnoy
+ */
+public final class CompiledSequenceChecker extends SequenceChecker {
+
+	/** bit set of the faces that can follow each face (indexed by packed ordinal) */
+	private final long[] followers;
+	/** bit set of the faces that can start a sequence */
+	private final long starters;
+	
+	/**
+	 * evaluate all the rules of a checker
+	 * @param rules the checker to compile
+	 */
+	CompiledSequenceChecker(SequenceChecker rules){
+		//any packed value masked by FACE_MASK is a valid index
+		followers = new long[PackedCard.FACE_MASK + 1];
+		Face[] faces = Face.values();
+		long starters = 0;
+		for (Face face1 : faces){
+			Card card1 = new Card(face1, true);
+			if (rules.checkStarter(card1)){
+				starters |= 1L << face1.ordinal();
+			}
+			for (Face face2 : faces){
+				if (rules.checkSequential(card1, new Card(face2, true))){
+					followers[face1.ordinal()] |= 1L << face2.ordinal();
+				}
+			}
+		}
+		this.starters = starters;
+	}
+	
+	/**
+	 * @param card a packed card
+	 * @return bit set of the faces that can follow card (bit index is the face's ordinal)
+	 */
+	public long getFollowers(byte card){
+		return followers[PackedCard.ordinal(card)];
+	}
+	
+	/**
+	 * @return bit set of the faces that can start a sequence (bit index is the face's ordinal)
+	 */
+	public long getStarters(){
+		return starters;
+	}
+	
+	@Override
+	public boolean checkStarter(Card card) {
+		return (starters >>> card.getFace().ordinal() & 1L) != 0;
+	}
+
+	@Override
+	public boolean checkSequential(Card card1, Card card2) {
+		return (followers[card1.getFace().ordinal()] >>> card2.getFace().ordinal() & 1L) != 0;
+	}
+	
+	@Override
+	public boolean checkStarter(byte card){
+		return (starters >>> PackedCard.ordinal(card) & 1L) != 0;
+	}
+	
+	@Override
+	public boolean checkSequential(byte card1, byte card2){
+		return (followers[PackedCard.ordinal(card1)] >>> PackedCard.ordinal(card2) & 1L) != 0;
+	}
+	
+	/**
+	 * already compiled
+	 * @return this checker
+	 */
+	@Override
+	public SequenceChecker compile(){
+		return this;
+	}
+}
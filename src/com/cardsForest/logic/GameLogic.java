@@ -6,8 +6,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.cardsForest.foundations.Stack;
-import com.cardsForest.glue.OperationManager;
+import com.cardsForest.foundations.Stack.Operation;
+import com.cardsForest.glue.GameContext;
+import com.cardsForest.glue.OperationManager.ClearOperation;
 import com.cardsForest.glue.Selection;
+import com.cardsForest.glue.StackIndex;
 
 
 /**
@@ -20,6 +23,9 @@ import com.cardsForest.glue.Selection;
  * each Stack's behavior methods (click/doubleClick) <br>
  * 
  * Game is responsible to update GameLogic of interaction events
+ * <p>
+ * all of the game's state is kept in its {@link GameContext},
+ * so any number of games can run independently, each on its own thread
  * 
  * @see com.cardsForest.platform.Game
  * @see Stack
@@ -35,8 +41,14 @@ public abstract class GameLogic {
 	
 	/** game's logical stacks */
 	public List<Stack> stacks;
-	/** game's singleton selection */ 
+	/** game's context (shared by all of the game's stacks and behaviors) */
+	protected final GameContext context;
+	/** game's selection (short-form for the context's selection) */ 
 	public Selection selection;
+	/** number of the current deal (-1 if the deal was not numbered) */
+	long dealNumber;
+	/** finds the stacks under clicks and drops */
+	private final StackIndex stackIndex;
 	
 	/** true only if we started handling a click with selection available */
 	boolean startedWithSelection;
@@ -62,8 +74,36 @@ public abstract class GameLogic {
 	 * create the game's logical stacks
 	 */
 	public GameLogic(){
-		selection = Selection.get();
+		this(false);
+	}
+	
+	/**
+	 * create a new GameLogic instance <br>
+	 * create the game's logical stacks
+	 * <p>
+	 * a headless game never creates sprites, 
+	 * its operations are never logged for display
+	 * (used for simulations without a display)
+	 * @param headless true to create a game without display state
+	 */
+	public GameLogic(boolean headless){
+		this(new GameContext(headless));
+	}
+	
+	/**
+	 * create a new GameLogic instance <br>
+	 * create the game's logical stacks
+	 * @param context the game's context (must not be shared with another game)
+	 */
+	public GameLogic(GameContext context){
+		if (context == null){
+			throw new NullPointerException();
+		}
+		this.context = context;
+		selection = context.getSelection();
+		dealNumber = -1;
 		stacks = new ArrayList<Stack>();
+		stackIndex = new StackIndex();
 		
 		startedWithSelection = false;
 		wasSelected = false;
@@ -77,6 +117,44 @@ public abstract class GameLogic {
 		return stacks;
 	}
 	
+	/**
+	 * @return the game's context
+	 */
+	public GameContext getContext() {
+		return context;
+	}
+	
+	/**
+	 * @return true if the game runs without any display state
+	 */
+	public boolean isHeadless() {
+		return context.isHeadless();
+	}
+	
+	/**
+	 * create a new empty stack matching the game's display mode
+	 * @param relX relative x coordinate (ignored when headless)
+	 * @param relY relative y coordinate (ignored when headless)
+	 * @param spread sprite's spread value (ignored when headless)
+	 * @return the new stack
+	 */
+	protected Stack newStack(double relX, double relY, boolean spread){
+		Stack stack = Stack.newEmptyStack(context);
+		if (!stack.isHeadless()){
+			stack.getSprite().setRelativePos(relX, relY);
+			stack.getSprite().spread = spread;
+		}
+		return stack;
+	}
+	
+	/**
+	 * create a new deck matching the game's display mode
+	 * @return a new stack contain 52 cards
+	 */
+	protected Stack newDeck(){
+		return Stack.newDeck(context);
+	}
+	
 	/**
 	 * actions that are perform at the start of each click handling
 	 */
@@ -94,6 +172,10 @@ public abstract class GameLogic {
 			//had selection from start and didn't find destination -> clear selection
 			selection.selectEnd(null);
 		}
+		if (!selection.isAvailable()){
+			//the click is a single undoable action
+			context.getOperationManager().endAction();
+		}
 	}
 	
 	/**
@@ -104,17 +186,78 @@ public abstract class GameLogic {
 		//TODO
 	}
 	
+	/**
+	 * numbered deal: the same deal number always produces the same layout 
+	 * (and the same shuffles later in the game)
+	 * @param dealNumber the deal number (seed of the game's generator)
+	 */
+	public void deal(long dealNumber) {
+		this.dealNumber = dealNumber;
+		context.getRandom().setSeed(dealNumber);
+		deal();
+		context.getOperationManager().clearHistory();
+	}
+	
+	/**
+	 * @return number of the current deal (-1 if the deal was not numbered)
+	 */
+	public long getDealNumber() {
+		return dealNumber;
+	}
+	
 	/**
 	 * clears game's logic stack and calls deal
 	 */
 	public void redeal() {
-		if (Selection.get().isAvailable()){
+		clearStacks();
+		dealNumber = -1;
+		deal();
+		context.getOperationManager().clearHistory();
+	}
+	
+	/**
+	 * clears game's logic stack and calls deal with a deal number
+	 * @param dealNumber the deal number (see {@code deal(long)})
+	 */
+	public void redeal(long dealNumber) {
+		clearStacks();
+		deal(dealNumber);
+	}
+	
+	/**
+	 * undo the last action (cancels the selection first)
+	 * @return false if there was nothing to undo
+	 */
+	public boolean undo() {
+		if (selection.isAvailable()){
 			selection.selectEnd(null);
 		}
-		for (Stack stack : stacks){
-			stack.clear();
+		return context.getOperationManager().undo();
+	}
+	
+	/**
+	 * redo the last undone action (cancels the selection first)
+	 * @return false if there was nothing to redo
+	 */
+	public boolean redo() {
+		if (selection.isAvailable()){
+			selection.selectEnd(null);
 		}
-		deal();
+		return context.getOperationManager().redo();
+	}
+	
+	/**
+	 * cancel the selection and remove all cards from the stacks
+	 */
+	private void clearStacks() {
+		if (selection.isAvailable()){
+			selection.selectEnd(null);
+		}
+		Operation[] operations = new Operation[stacks.size()];
+		for (int i = 0; i < operations.length; i++){
+			operations[i] = new ClearOperation(stacks.get(i));
+		}
+		context.getOperationManager().add(operations);
 	}
 	
 	/**
@@ -143,13 +286,8 @@ public abstract class GameLogic {
 		}
 
 		//get the clicked stack
-		for(Stack stack : stacks){
-			if (stack.inBounds(p)){
-				clickedStack = stack;
-				clicked = true;
-				break;
-			}
-		}
+		clickedStack = stackIndex.stackAt(stacks, p);
+		clicked = (clickedStack != null);
 		
 		if (clicked){
 			//we clicked on some stack
@@ -163,7 +301,7 @@ public abstract class GameLogic {
 				//not so esthetic, 
 				//but we need to update the display
 				//with the selection before we can continue
-				OperationManager.doDisplayOperations();
+				context.getOperationManager().doDisplayOperations();
 				if (selection.isAvailable()){
 					//not very likely we won't get here but it's good to check
 					selection.src.doubleClick(p);
@@ -207,28 +345,13 @@ public abstract class GameLogic {
 	 */
 	public void updateClick(Rectangle rect) {
 		boolean clicked = false; //true if clicked directly on current stack
-		Rectangle inter; //intersection rectangle between selection's bounds to current stack's bounds
 		
 		//perform start actions
 		startAction();
 		
-		Stack maxStack = null; //the stack with maximum intersection size
-		int max = -1; 
-		for(Stack stack : stacks){
-			//get the intersection
-			inter = stack.getSprite().getBounds().intersection(rect);
-			if (!inter.isEmpty()){
-				//got intersection
-				//calculate surface size
-				int size = inter.height * inter.width;
-				if (size > max){
-					//get the maximum
-					max = size;
-					maxStack = stack;
-					clicked = true;
-				}
-			}
-		}
+		//the stack with maximum intersection size
+		Stack maxStack = stackIndex.bestOverlap(stacks, rect);
+		clicked = (maxStack != null);
 		
 		if (clicked){
 			//got some intersection
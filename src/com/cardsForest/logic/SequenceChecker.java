@@ -6,10 +6,19 @@ package com.cardsForest.logic;
 import java.util.List;
 
 import com.cardsForest.foundations.Card;
+import com.cardsForest.foundations.PackedCard;
+import com.cardsForest.foundations.PackedStack;
 
 /**
  * defines rules for validity of a list of card <br>
  * and supply methods to check that validity
+ * <p>
+ * packed cards (see {@link PackedCard}) are checked through the byte variants,
+ * by default those delegate to the {@link Card} variants using read only cards,
+ * subclasses may override them to check the packed values directly
+ * <p>
+ * any checker whose rules depend only on the cards' faces can be compiled 
+ * into lookup tables (see {@code compile})
  * 
  * @author Amit Portnoy
  *
@@ -56,4 +65,64 @@ public abstract class SequenceChecker {
 		
 		return ans;
 	}
+	
+	/**
+	 * evaluate the rules of this checker for every pair of faces 
+	 * (the rules must depend only on the cards' faces)
+	 * @return a checker with the same rules that checks by table lookups
+	 * @see CompiledSequenceChecker
+	 */
+	public SequenceChecker compile(){
+		return new CompiledSequenceChecker(this);
+	}
+	
+	/**
+	 * check if this packed card can start a new sequence
+	 * @param card packed card to check
+	 * @return true is card is a possible start
+	 */
+	public boolean checkStarter(byte card){
+		return checkStarter(PackedCard.toCard(card));
+	}
+	
+	/**
+	 * check if two packed cards can follow in sequence
+	 * @param card1 first packed card
+	 * @param card2 second packed card
+	 * @return true if the cards are sequential
+	 */
+	public boolean checkSequential(byte card1, byte card2){
+		return checkSequential(PackedCard.toCard(card1), PackedCard.toCard(card2));
+	}
+	
+	/**
+	 * check if the cards of a packed stack from a given index to the top 
+	 * are compatible with this sequenceChecker
+	 * @param stack stack to check
+	 * @param from index of the first card to check
+	 * @param checkStarter if true than first card must be a starter (see checkStarter)
+	 * @return true if the cards are a valid sequence
+	 */
+	public boolean checkSequance(PackedStack stack, int from, boolean checkStarter){
+		int size = stack.size();
+		if (from >= size){
+			//empty true
+			return true;
+		}
+		
+		byte prev = stack.get(from);
+		if (checkStarter && !checkStarter(prev)){
+			return false;
+		}
+		for(int i = from+1; i < size; i++){
+			//for each two following cards check if they're sequential
+			byte card = stack.get(i);
+			if (!checkSequential(prev, card)){
+				return false;
+			}
+			prev = card;
+		}
+		
+		return true;
+	}
 }
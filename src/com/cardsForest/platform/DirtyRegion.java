@@ -0,0 +1,88 @@
+package com.cardsForest.platform;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * the parts of the canvas that have to be repainted 
+ * (used by {@link GameCanvas})
+ * <p>
+ * kept as a few disjoint rectangles: 
+ * an added rectangle is merged with the rectangles it intersects, 
+ * if there are too many rectangles they are merged into their bounds
+ * 
+ * @author Amit Portnoy
+ */
+final class DirtyRegion {
+
+	/** maximum number of rectangles (each one is a separate repaint) */
+	static final int MAX_RECTANGLES = 8;
+	
+	/** the rectangles (disjoint) */
+	private final List<Rectangle> rectangles;
+	
+	DirtyRegion(){
+		rectangles = new ArrayList<Rectangle>();
+	}
+	
+	/**
+	 * add a rectangle to the region
+	 * @param r the rectangle (ignored if null or empty)
+	 */
+	void add(Rectangle r){
+		if (r == null || r.isEmpty()){
+			return;
+		}
+		Rectangle merged = new Rectangle(r);
+		boolean changed = true;
+		while (changed){
+			//merging may make the rectangle intersect other rectangles
+			changed = false;
+			for (int i = 0; i < rectangles.size(); i++){
+				if (rectangles.get(i).intersects(merged)){
+					merged.add(rectangles.remove(i--));
+					changed = true;
+				}
+			}
+		}
+		rectangles.add(merged);
+		
+		if (rectangles.size() > MAX_RECTANGLES){
+			Rectangle bounds = rectangles.get(0);
+			for (Rectangle rectangle : rectangles){
+				bounds.add(rectangle);
+			}
+			rectangles.clear();
+			rectangles.add(bounds);
+		}
+	}
+	
+	/**
+	 * add all the rectangles of another region
+	 * @param other the region to add
+	 */
+	void add(DirtyRegion other){
+		for (Rectangle r : other.rectangles){
+			add(r);
+		}
+	}
+	
+	/**
+	 * @return true if nothing has to be repainted
+	 */
+	boolean isEmpty(){
+		return rectangles.isEmpty();
+	}
+	
+	/**
+	 * @return the rectangles of the region (disjoint)
+	 */
+	List<Rectangle> getRectangles(){
+		return rectangles;
+	}
+	
+	void clear(){
+		rectangles.clear();
+	}
+}
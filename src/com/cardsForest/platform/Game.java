@@ -4,7 +4,7 @@ import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.event.MouseEvent;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Random;
 
 
 import static com.cardsForest.platform.Shortcuts.*;
@@ -15,9 +15,13 @@ import com.cardsForest.games.klondike.Klondike;
 import com.cardsForest.glue.Motion;
 import com.cardsForest.glue.CardSpriteStore;
 import com.cardsForest.glue.Drag;
+import com.cardsForest.glue.GameContext;
+import com.cardsForest.glue.MotionDrawer;
+import com.cardsForest.glue.MotionScheduler;
 import com.cardsForest.glue.OperationManager;
 import com.cardsForest.glue.Selection;
 import com.cardsForest.logic.GameLogic;
+import com.cardsForest.platform.GameEventQueue.Command;
 
 /**
  * the main thread of the game <br><p>
@@ -25,8 +29,10 @@ import com.cardsForest.logic.GameLogic;
  * - load the game's sprites <br>
  * - create the GameLogic <br>
  * - transfer events to GameLogic<br>
- * - handle animation / dragging
+ * - handle animation / dragging (any number of motions at once, without blocking the events)
  * - update the GameApplet when needed
+ * <p>
+ * every game has its own state (no static state is shared between games)
  * 
  * @see GameLogic
  * @see GameApplet
@@ -35,7 +41,7 @@ import com.cardsForest.logic.GameLogic;
  * @author Amit Portnoy
  *
  */
-public class Game extends Thread{
+public class Game extends Thread implements MotionDrawer{
 
 	/** animation Frames Per Seconds */
 	public final static long FPS = 24;
@@ -51,18 +57,34 @@ public class Game extends Thread{
 	 * large jumps) s*/
 	final static int MAX_FRAME_SKIPS = 5;
 
+	/** the game's state (shared with logic) */
+	final GameContext context;
+	/** short-form for the context's operation manager */
+	final OperationManager operations;
+	/** short-form for the context's selection */
+	final Selection selection;
 	/** manage the game logic decisions */
-	static GameLogic logic;
+	final GameLogic logic;
 	/** if true the game is running and responds
 	 * to user events  */
-	static boolean running;
+	boolean running;
+	/** picks the number of each new deal */
+	final Random dealNumbers;
+	/** the motions being drawn */
+	final MotionScheduler motions;
+	/** the drag in progress (null if none), input waits until it is dropped */
+	Drag drag;
+	/** time of the next animation frame (see {@code System.nanoTime()}) */
+	long nextFrame;
+	/** number of frames in a row that were late (see {@code NO_DELAYS_PER_YIELD}) */
+	int noDelays;
 
 	/**
 	 * used as input to the game <br>
 	 * most game event and requests must
 	 * through this queue 
 	 */
-	static public ArrayBlockingQueue<Object> queue;
+	final public GameEventQueue queue;
 	
 	/**
 	 * reference to the game applet <br>
@@ -70,12 +92,7 @@ public class Game extends Thread{
 	 * TODO: consider transferring a more simple object
 	 * Game doesn't need all GameApplet
 	 */
-	static GameApplet applet;
-	
-	/**
-	 * singleton instance of the game
-	 */
-	static private Game game = null;
+	final GameApplet applet;
 	
 	/**
 	 * create a new game instance: <br>
@@ -90,46 +107,62 @@ public class Game extends Thread{
 		if (applet == null){
 			throw new NullPointerException();
 		}
-		Game.applet = applet;
-		//load the images
-		CardSpriteStore.loadAll();
+		this.applet = applet;
+		//start loading the images (the game waits only for the ones it draws)
+		CardSpriteStore.loadAllAsync();
 		
-		queue = new ArrayBlockingQueue<Object>(1);		
-		logic = new Klondike();
+		queue = new GameEventQueue();
+		context = new GameContext(false);
+		context.setMotionDrawer(this);
+		operations = context.getOperationManager();
+		selection = context.getSelection();
+		logic = new Klondike(context);
 		running = false;
+		dealNumbers = new Random();
+		motions = new MotionScheduler();
+		drag = null;
 		
 		//start the game
 		start();
 	}
 	
 	/**
-	 * create the singleton instance of the game
+	 * create a new game instance and start it
 	 * @param applet the game will update this when needed
+	 * @return the new game
 	 */
-	static public void create(GameApplet applet){
-		if (game == null){
-			game = new Game(applet);
-		} else {
-			print("game already created"); //aka stupid explorer
-		}
+	static public Game create(GameApplet applet){
+		return new Game(applet);
+	}
+	
+	/**
+	 * @return the game's selection
+	 */
+	public Selection getSelection(){
+		return selection;
 	}
 	
 	/**
 	 * cyclicly go over the queue and handle incoming events
 	 * <p>
 	 * 
-	 * events are (types are in <b>bold</b>):<br>
-	 * <b> String </b> <br>
-	 * "start" - game is ready to begin for the first time <br>
-	 * "paint" - draw the game to canvas <br>
-	 * "deal" - restart the game <br>
+	 * events are (types are in <b>bold</b>, see {@link GameEventQueue} for their order):<br>
+	 * <b> Command </b> <br>
+	 * START - game is ready to begin for the first time 
+	 * (using the applet's deal number if there is one) <br>
+	 * PAINT - draw the game to canvas <br>
+	 * DEAL - restart the game <br>
+	 * UNDO / REDO - undo or redo the last action <br>
 	 * <b> Dimension </b> - update screen size <br>
 	 * <b> MouseEvent </b> - mouse click (ignored if not running) <br>
 	 * <b> Drag </b> - drag handling start (ignored if not running) <br>
 	 * <p>
 	 * at the end of most events checks if game is done 
 	 * (ask GameLogic) and update applet if so 
-	 * 
+	 * <p>
+	 * motions do not block the loop: while there are motions to draw
+	 * the queue is polled until the next frame is due, then all motions advance a frame
+	 * (input waits in the queue while a drag is in progress)
 	 */
 	@Override
 	public void run(){
@@ -137,51 +170,74 @@ public class Game extends Thread{
 			Object o = null;
 			try {
 				//get a new event
-				o = queue.take();
+				if (motions.isDone()){
+					o = queue.take();
+				} else {
+					o = queue.poll(nextFrame, drag == null);
+				}
 			} catch (InterruptedException e) {
 				error("interrupted while waiting for game event");
 			}
-			if (o instanceof String){
-				handleStringEvent((String)o);
-		    }
-			if (o instanceof Dimension){
-				handleScreenSizeEvent(((Dimension) o).width,((Dimension) o).height);
-			}
-			if (running && o instanceof MouseEvent){
-				handleClick((MouseEvent)o);
+			if (o != null){
+				handleEvent(o);
 			}
-			if (running && o instanceof Drag){
-				handleDragEvent((Drag)o);
+			if (!motions.isDone() && System.nanoTime() - nextFrame >= 0){
+				drawFrame();
 			}
 		}
 	}
 	
+	/**
+	 * handle a single event
+	 * 
+	 * see run method header */
+	private void handleEvent(Object o){
+		if (o instanceof Command){
+			handleCommand((Command)o);
+	    }
+		if (o instanceof Dimension){
+			handleScreenSizeEvent(((Dimension) o).width,((Dimension) o).height);
+		}
+		if (running && o instanceof MouseEvent){
+			handleClick((MouseEvent)o);
+		}
+		if (running && o instanceof Drag){
+			handleDragEvent((Drag)o);
+		}
+	}
+	
 	/** 
-	 * handle single string command
+	 * handle single command
 	 * 
 	 * see run method header */
-	private void handleStringEvent(String str){
-		if (str.equals("start")){
+	private void handleCommand(Command command){
+		if (command == Command.START){
 			running = true;
-			logic.deal();
+			long dealNumber = applet.getDealParameter();
+			logic.deal(dealNumber >= 0? dealNumber : nextDealNumber());
+			showDealNumber();
 			
 			//update the display
-			OperationManager.doDisplayOperations();
-			applet.canvas.paintGame(null);
+			operations.doDisplayOperations();
+			applet.canvas.paintGame(motions);
 			
 			checkGameDone();
 		}
-		if (str.equals("paint")){
-			applet.canvas.paintGame(null);
+		if (command == Command.PAINT){
+			applet.canvas.repaintAll();
+			applet.canvas.paintGame(motions);
 		}
-		if (str.equals("deal")){
+		if (command == Command.UNDO || command == Command.REDO){
+			handleUndoEvent(command == Command.UNDO);
+		}
+		if (command == Command.DEAL){
 			running = true;
-			applet.setStatus(null);
-			logic.redeal();
+			logic.redeal(nextDealNumber());
+			showDealNumber();
 			
 			//update the display
-			OperationManager.doDisplayOperations();
-			applet.canvas.paintGame(null);
+			operations.doDisplayOperations();
+			applet.canvas.paintGame(motions);
 			
 			checkGameDone();
 		}
@@ -192,7 +248,8 @@ public class Game extends Thread{
 		for (Stack stack : logic.getStacks()){
 			stack.getSprite().updateScreenSize(w, h);
 		}
-		Selection.get().updateScreenSize(w, h);
+		selection.updateScreenSize(w, h);
+		applet.canvas.layoutChanged();
 	}
 	
 	/** 
@@ -210,8 +267,8 @@ public class Game extends Thread{
 		}
 		
 		//update the display
-		OperationManager.doDisplayOperations();
-		applet.canvas.paintGame(null);
+		operations.doDisplayOperations();
+		applet.canvas.paintGame(motions);
 		
 		checkGameDone();
 	}
@@ -222,50 +279,98 @@ public class Game extends Thread{
 	 * 
 	 * see run method header */
 	private void handleDragEvent(Drag drag){
-		if (Selection.get().isAvailable()
+		if (selection.isAvailable()
 				&&
-				! Selection.get().getBounds().contains(drag.getStart())){
+				! selection.getBounds().contains(drag.getStart())){
 			//got a selection but it's not in bounds 
 			//end the selection
-			Selection.get().selectEnd(null);
+			selection.selectEnd(null);
 			//update the display
-			OperationManager.doDisplayOperations();
-			applet.canvas.paintGame(null);
+			operations.doDisplayOperations();
+			applet.canvas.paintGame(motions);
 			
 		}
 		
-		if (!Selection.get().isAvailable()){
+		if (!selection.isAvailable()){
 			//don't have a selection (maybe because we just now ended it)
 			//so try to select
 			logic.updateClick(drag.getStart(),false);
 			//update the display with the changes
-			OperationManager.doDisplayOperations();
-			applet.canvas.paintGame(null);
+			operations.doDisplayOperations();
+			applet.canvas.paintGame(motions);
 		}
 
-		if (Selection.get().isAvailable()){
+		if (selection.isAvailable()){
 				//we have a selection
 				//and it's in bounds of the click
 			    //(got to be in bounds otherwise it wouldn't have been selected)
 			
 				//it's in bounds -> GOT drag
-				//draw the drag animation
+				//draw the drag motion 
+				//(it is dropped by drawFrame once it is done)
+				this.drag = drag;
 				drawMotion(drag);
-				
-				//update the logic with drag end
-				//(for logic's concern this is just two clicks
-				//start and end ... except end click now use 
-				//the bounds of the dragged selection
-				//(instead of just a point)
-				logic.updateClick(Selection.get().getBounds());
-				//update the display with the changes
-				OperationManager.doDisplayOperations();
-				applet.canvas.paintGame(null);
+				if (!motions.contains(drag)){
+					//already done
+					dropDrag();
+				}
+				return;
 		}
 		
 		checkGameDone();
 	}
 	
+	/**
+	 * the drag is done, update the logic with the drop
+	 */
+	private void dropDrag(){
+		drag = null;
+		//update the logic with drag end
+		//(for logic's concern this is just two clicks
+		//start and end ... except end click now use 
+		//the bounds of the dragged selection
+		//(instead of just a point)
+		logic.updateClick(selection.getBounds());
+		//update the display with the changes
+		operations.doDisplayOperations();
+		applet.canvas.paintGame(motions);
+		
+		checkGameDone();
+	}
+	
+	/**
+	 * undo or redo the last action
+	 * @param undo true to undo, false to redo
+	 */
+	private void handleUndoEvent(boolean undo){
+		if (undo? logic.undo() : logic.redo()){
+			//the game may no longer be done
+			running = true;
+			showDealNumber();
+			
+			//update the display
+			operations.doDisplayOperations();
+			applet.canvas.paintGame(motions);
+			
+			checkGameDone();
+		}
+	}
+	
+	/**
+	 * show the deal number in the applet's status
+	 */
+	private void showDealNumber(){
+		applet.setStatus("deal #" + logic.getDealNumber());
+	}
+	
+	/**
+	 * @return a random deal number 
+	 * (shown in the status so a game can be played again)
+	 */
+	private long nextDealNumber(){
+		return dealNumbers.nextInt(Integer.MAX_VALUE);
+	}
+	
 	/**
 	 * ask logic if game is done
 	 * if so update applet's status field
@@ -278,6 +383,29 @@ public class Game extends Thread{
 		}
 	}
 	
+	/**
+	 * add the areas of the sprites that changed since the last call 
+	 * (see {@link GameCanvas}'s {@code paintGame})
+	 * @param region region to add the areas to
+	 */
+	void addDirtyAreas(DirtyRegion region){
+		for (Stack stack : logic.getStacks()){
+			region.add(stack.getSprite().takeDirtyArea());
+		}
+		region.add(selection.stack.getSprite().takeDirtyArea());
+	}
+	
+	/**
+	 * draw the parts of the game that only change with the layout
+	 * (the bases of the stacks) 
+	 * @param g graphics to draw on
+	 */
+	public void drawBackground(Graphics g){
+		for (Stack stack : logic.getStacks()){
+			stack.drawBase(g);
+		}
+	}
+	
 	/**
 	 * draw the game <br>
 	 * and selection if available <br>
@@ -285,12 +413,12 @@ public class Game extends Thread{
 	 * @param g graphics to draw on
 	 * @param anim animation to draw (if not null)
 	 */
-	static public void draw(Graphics g, Motion anim){
+	public void draw(Graphics g, Motion anim){
 		for (Stack stack : logic.getStacks()){
 			stack.draw(g);
 		}
-		if(Selection.get().isAvailable()){
-			Selection.get().draw(g);
+		if(selection.isAvailable()){
+			selection.draw(g);
 		}
         if (anim != null){
         	anim.draw(g);
@@ -298,75 +426,53 @@ public class Game extends Thread{
 	}
 	
 	/**
-	 * draw {@link Motion} <br>
-	 * draw frame by frame according to FPS until
+	 * start drawing a {@link Motion} (see {@link MotionScheduler}) <br>
+	 * the game's loop draws it frame by frame according to FPS until
 	 * anim's isDone returns true
 	 * @param anim motion to draw
 	 */
-	static public void drawMotion(Motion anim){
-		anim.init();
-		if(anim.isDone()){
-			
-			return;
+	@Override
+	public void drawMotion(Motion anim){
+		if (motions.isDone()){
+			//first motion, its first frame is due now
+			nextFrame = System.nanoTime();
+			noDelays = 0;
 		}
+		motions.add(anim);
+	}
 	
-	    long beforeTime, afterTime, timeDiff, sleepTime;
-	    long overSleepTime = 0L;
-	    int noDelays = 0;
-	    long excess = 0L; 
-	    long period = 1000000000L/FPS;
-		   
-	    beforeTime = System.nanoTime();
-		   
-		while (true) {
-			anim.updateFrame();
-			applet.canvas.paintGame(anim);
-	
-			if (anim.isDone()){
-				return;
-				
-			}
-			afterTime = System.nanoTime();
-			timeDiff = afterTime - beforeTime;
-			sleepTime = (period - timeDiff) - overSleepTime;
-				
-			if (sleepTime > 0) { // some time left in this cycle
-				try {
-					Thread.sleep(sleepTime / 1000000L); // nano ->
-														// ms
-				} catch (InterruptedException ex) {
-					error("animator was interrupted");
-				}
-				overSleepTime = (System.nanoTime() - afterTime)
-						- sleepTime;
-			} else { // sleepTime <= 0; the frame took longer than
-						// the period
-				excess -= sleepTime; // store excess time value
-				overSleepTime = 0L;
-	
-				if (++noDelays >= NO_DELAYS_PER_YIELD) {
-					Thread.yield(); // give another thread a chance
-									// to run
-					noDelays = 0;
-				}
-			}
-	
-			beforeTime = System.nanoTime();
-	
-			/*
-			 * If frame animation is taking too long, update the
-			 * game state without rendering it, to get the
-			 * updates/sec nearer to the required FPS.
-			 */
-			int skips = 0;
-			while ((excess > period) && (skips < MAX_FRAME_SKIPS)) {
-				excess -= period;
-				anim.updateFrame(); 
-				skips++;
-				if (anim.isDone()){
-					return;
-				}
+	/**
+	 * advance all motions by a frame (or more if the game is late) and draw them
+	 * <p>
+	 * if frames are taking too long, the motions are updated 
+	 * without rendering (up to {@code MAX_FRAME_SKIPS} times),
+	 * to get the updates/sec nearer to the required FPS
+	 */
+	private void drawFrame(){
+		long period = 1000000000L/FPS;
+		long now = System.nanoTime();
+		int skips = 0;
+		do {
+			motions.updateFrame();
+			nextFrame += period;
+		} while (!motions.isDone() && now - nextFrame >= 0 && ++skips <= MAX_FRAME_SKIPS);
+		
+		if (now - nextFrame >= 0){
+			//too late to catch up, continue from now
+			nextFrame = now + period;
+			if (++noDelays >= NO_DELAYS_PER_YIELD) {
+				//give another thread a chance to run
+				Thread.yield();
+				noDelays = 0;
 			}
+		} else {
+			noDelays = 0;
+		}
+		
+		applet.canvas.paintGame(motions);
+		
+		if (drag != null && !motions.contains(drag)){
+			dropDrag();
 		}
 	}
 	
@@ -13,6 +13,8 @@ import javax.swing.JButton;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 
+import com.cardsForest.platform.GameEventQueue.Command;
+
 
 
 import static com.cardsForest.platform.Shortcuts.*;
@@ -33,6 +35,8 @@ public class GameApplet extends JApplet {
 	
 	/* GUI elements */
 	
+	/** the game shown by this applet */
+	Game game;
 	/** the canvas the game is drawn onto */
 	GameCanvas canvas;
 	/** the status field can be updated by the game */
@@ -52,11 +56,14 @@ public class GameApplet extends JApplet {
 	@Override
     public void init() {
 		/* create the game thread */
-		Game.create(this);
+		if (game == null){
+			game = Game.create(this);
+		} else {
+			Shortcuts.print("game already created"); //aka stupid explorer
+		}
 		
-		//TODO currently loading of images is done in Game creation
-		//should move it to applet and create proxy graphics while 
-		//images are being download
+		//the images are loaded in the background (started by Game creation)
+		//while the GUI is created
 		
 		/* create the GUI */
 		createGUI();  	
@@ -69,7 +76,7 @@ public class GameApplet extends JApplet {
 		    //initiate the double buffer strategy    
 		    canvas.initStrategy();
     		/* start the Game */
-    		Game.queue.offer("start");
+    		game.queue.offer(Command.START);
     		started = true;
     	}
     }
@@ -100,13 +107,16 @@ public class GameApplet extends JApplet {
 		    	setSize(800,600); //the size will actually be controlled by the HTML
 		    	
 		    	// create the canvas
-			    canvas = new GameCanvas();
+			    canvas = new GameCanvas(game);
 			    // create the status field
 			    status = new JTextField(15);
 			    status.setEditable(false);			    
 			    // create the deal button
 			    JButton deal = new JButton("Deal");
 			    deal.setAction(new dealAction());
+			    // create the undo / redo buttons
+			    JButton undo = new JButton(new gameAction("Undo", "undo the last move", Command.UNDO));
+			    JButton redo = new JButton(new gameAction("Redo", "redo the last undone move", Command.REDO));
 			    
 			    //wrap in panel because we are using swing
 			    JPanel canvasPanel = new JPanel();
@@ -122,6 +132,8 @@ public class GameApplet extends JApplet {
 				statusPanel.setBackground(Color.LIGHT_GRAY);		    			    
 			    //add the deal button
 			    statusPanel.add(deal);
+			    statusPanel.add(undo);
+			    statusPanel.add(redo);
 			    //add the status field
 			    status.setBackground(statusPanel.getBackground());
 			    statusPanel.add(status);
@@ -132,6 +144,22 @@ public class GameApplet extends JApplet {
 		});
 	}
 	
+	/**
+	 * the applet's "deal" parameter replays a numbered deal
+	 * @return the deal number parameter (-1 if missing or invalid)
+	 */
+	public long getDealParameter(){
+		try {
+			String dealNumber = getParameter("deal");
+			return dealNumber == null? -1 : Long.parseLong(dealNumber.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		} catch (NullPointerException e) {
+			//no applet stub (not running as an applet)
+			return -1;
+		}
+	}
+	
 	/**
 	 * set the status bar to a selected string
 	 * @param str the string to put as status
@@ -160,7 +188,28 @@ public class GameApplet extends JApplet {
 		}
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			Game.queue.offer("deal");
+			game.queue.offer(Command.DEAL);
+		}	
+	}
+	
+	/**
+	 * sends a command to the game
+	 */
+	private class gameAction extends AbstractAction{
+
+		private static final long serialVersionUID = 1L;
+		
+		/** the command to send */
+		private final Command event;
+
+		public gameAction(String name, String description, Command event){
+			putValue(Action.NAME, name);
+			putValue(Action.SHORT_DESCRIPTION, description);
+			this.event = event;
+		}
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			game.queue.offer(event);
 		}	
 	}
 	
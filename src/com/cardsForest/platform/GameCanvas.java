@@ -2,17 +2,16 @@ package com.cardsForest.platform;
 
 import java.awt.Canvas;
 import java.awt.Color;
-import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Toolkit;
 import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
 
 import com.cardsForest.glue.Motion;
 
-import static com.cardsForest.platform.Shortcuts.*;
-
 /**
  * this is the main graphic component the game is drawn on <br>
  * {@link MouseInputHandler} listens on this
@@ -28,12 +27,36 @@ public class GameCanvas extends Canvas{
 	/** used for enabling double buffer */
 	private BufferStrategy strategy = null;
 	
+	/** the game drawn on this canvas */
+	private final Game game;
+	
+	/** background color */
+	private static final Color BACKGROUND = new Color(38,89,38);
+	/** the static layer drawn at the start of every frame: 
+	 * background, frame and the game's background (null until it is built) */
+	private BufferedImage background = null;
+	/** regions to repaint in the next frame */
+	private DirtyRegion dirty = new DirtyRegion();
+	/** regions repainted in the previous frame */
+	private DirtyRegion previous = new DirtyRegion();
+	/** regions repainted in the current frame (kept to avoid allocating) */
+	private final DirtyRegion frame = new DirtyRegion();
+	/** area of the motion drawn in the previous frame */
+	private Rectangle motionArea = null;
+	/** number of buffers of the buffer strategy */
+	private static final int BUFFERS = 2;
+	/** number of next frames that repaint the whole canvas 
+	 * (one for each buffer, a buffer may be behind by several frames) */
+	private int fullFrames = BUFFERS;
+	
 	/**
 	 * initiate GameCanvas <br>
 	 * assign it with {@link MouseInputHandler}
+	 * @param game the game drawn on this canvas
 	 */
-	public GameCanvas(){
-		MouseInputHandler msh = new MouseInputHandler();
+	public GameCanvas(Game game){
+		this.game = game;
+		MouseInputHandler msh = new MouseInputHandler(game);
 		addMouseListener(msh);
 		addMouseMotionListener(msh);
 	}
@@ -43,7 +66,7 @@ public class GameCanvas extends Canvas{
 	 * canvas was created and assigned a peer
 	 */
 	public void initStrategy(){
-		createBufferStrategy(2);
+		createBufferStrategy(BUFFERS);
 		strategy = getBufferStrategy();
 	}
 	
@@ -54,11 +77,7 @@ public class GameCanvas extends Canvas{
 	@Override
 	public void setBounds(int x, int y, int width, int height){
 		super.setBounds(x, y, width, height);
-		try {
-			Game.queue.put(new Dimension(getWidth(),getHeight()));
-		} catch (InterruptedException e) {
-			error("interrupted while trying to update screen size");
-		}		
+		game.queue.resize(getWidth(),getHeight());
 	}
 	
 	@Override
@@ -68,27 +87,114 @@ public class GameCanvas extends Canvas{
 	
 	@Override
 	public void paint(Graphics gt){
-		try {
-			Game.queue.put("paint");
-		} catch (InterruptedException e) {
-			error("interrupted while trying to update screen size");
-		}	
+		game.queue.paint();
+	}
+	
+	/**
+	 * repaint the whole canvas in the next {@code paintGame} 
+	 * (e.g. after the canvas was exposed or resized)
+	 */
+	public void repaintAll(){
+		fullFrames = BUFFERS;
+	}
+	
+	/**
+	 * rebuild the static layer in the next {@code paintGame} 
+	 * (after the game's layout changed) and repaint the whole canvas
+	 */
+	public void layoutChanged(){
+		background = null;
+		repaintAll();
 	}
 	
 	/**
 	 * paint the game - double buffer
+	 * <p>
+	 * only the dirty regions are repainted: the areas of the sprites that changed 
+	 * and the motion's previous and current areas <br>
+	 * the regions of the previous frame are repainted too
+	 * (after a flip the back buffer holds the frame before it)
+	 * 
 	 * @param anim additional object to draw canvas delegates handling it back to Game
 	 */
 	public void paintGame(Motion anim){
+		game.addDirtyAreas(dirty);
+		Rectangle area = (anim == null)? null : anim.getDrawArea();
+		dirty.add(motionArea);
+		dirty.add(area);
+		motionArea = area;
+		
+		if (strategy.contentsLost()){
+			fullFrames = BUFFERS;
+		}
+		boolean all = fullFrames > 0;
+		frame.clear();
+		frame.add(dirty);
+		frame.add(previous);
+		if (!all && frame.isEmpty()){
+			//nothing changed
+			return;
+		}
+		
+		if (background == null){
+			buildBackground();
+		}
+		
 		//get the current draw buffer
 		Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+		setHints(g);
 		
-		//set better quality rendering
-		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		if (all){
+			paintRegion(g, null, anim);
+		} else {
+			for (Rectangle r : frame.getRectangles()){
+				paintRegion(g, r, anim);
+			}
+		}
+        
+        //end double buffer paint (display to screen)
+		Toolkit.getDefaultToolkit().sync();
+		g.dispose();
+		strategy.show();
+		
+		//the current dirty regions are the next frame's previous regions
+		DirtyRegion painted = previous;
+		previous = dirty;
+		dirty = painted;
+		dirty.clear();
+		if (all){
+			fullFrames--;
+		}
+	}
+	
+	/**
+	 * paint a part of the canvas
+	 * @param g graphics of the draw buffer
+	 * @param clip the part to paint (null for the whole canvas)
+	 * @param anim additional object to draw
+	 */
+	private void paintRegion(Graphics2D g, Rectangle clip, Motion anim){
+		g.setClip(clip);
+		
+		//draw the static layer
+		g.drawImage(background, 0, 0, null);
+        
+        //draw game
+        game.draw(g,anim);
+	}
+	
+	/**
+	 * draw the static layer into an image compatible with the screen
+	 * (so drawing it is a single accelerated copy)
+	 */
+	private void buildBackground(){
+		background = getGraphicsConfiguration().createCompatibleImage(
+				Math.max(getWidth(), 1), Math.max(getHeight(), 1));
+		Graphics2D g = background.createGraphics();
+		setHints(g);
 		
 		//draw background
-		g.setColor(new Color(38,89,38));
+		g.setColor(BACKGROUND);
 		g.fillRect(0, 0, 
 	    		   getWidth() - 1,
 	    		   getHeight() - 1);
@@ -99,13 +205,17 @@ public class GameCanvas extends Canvas{
         	getWidth() - 1,
         	getHeight() - 1);
         
-        //draw game
-        Game.draw(g,anim);
-        
-        //end double buffer paint (display to screen)
-		Toolkit.getDefaultToolkit().sync();
-		g.dispose();
-		strategy.show();
+        //draw the game's background
+        game.drawBackground(g);
+        g.dispose();
+	}
+	
+	/**
+	 * set better quality rendering
+	 */
+	private static void setHints(Graphics2D g){
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
 	}
 
 }
@@ -0,0 +1,163 @@
+package com.cardsForest.platform;
+
+import java.awt.Dimension;
+import java.awt.event.MouseEvent;
+import java.util.ArrayDeque;
+
+import com.cardsForest.glue.Drag;
+
+/**
+ * input queue of a {@link Game}
+ * <p>
+ * any thread may add events, adding never blocks
+ * (the lock is only held to add or remove a single event)
+ * and input is never dropped <br>
+ * only the game's thread takes events
+ * <p>
+ * events are merged: <br>
+ * - only the latest screen size is kept <br>
+ * - a paint request is kept once (the game paints after every other event anyway)
+ * <p>
+ * events are taken in this order: screen size, input (in the order it was added), paint <br>
+ * while animating the game polls the queue between frames
+ * (and may leave the input in it, e.g. while a drag is in progress)
+ *
+ * @see Game
+ * @author Amit Portnoy
+ */
+public final class GameEventQueue {
+
+	/**
+	 * commands sent to the game
+	 */
+	public enum Command {
+		/** game is ready to begin for the first time */
+		START,
+		/** draw the game to canvas */
+		PAINT,
+		/** restart the game */
+		DEAL,
+		/** undo the last action */
+		UNDO,
+		/** redo the last undone action */
+		REDO
+	}
+
+	/** commands, clicks and drags (oldest first) */
+	private final ArrayDeque<Object> input;
+	/** latest screen size (null if there is no new size) */
+	private Dimension size;
+	/** true if a paint was requested */
+	private boolean paint;
+
+	GameEventQueue(){
+		input = new ArrayDeque<Object>();
+	}
+
+	/**
+	 * add a command
+	 * @param command the command ({@code PAINT} is the same as calling {@code paint})
+	 */
+	public void offer(Command command){
+		if (command == Command.PAINT){
+			paint();
+		} else {
+			addInput(command);
+		}
+	}
+
+	/**
+	 * add a mouse click
+	 * @param e the click
+	 */
+	public void offer(MouseEvent e){
+		addInput(e);
+	}
+
+	/**
+	 * add a drag start
+	 * @param drag the drag
+	 */
+	public void offer(Drag drag){
+		addInput(drag);
+	}
+
+	/**
+	 * request a paint (merged with a pending paint)
+	 */
+	public synchronized void paint(){
+		if (!paint){
+			paint = true;
+			notify();
+		}
+	}
+
+	/**
+	 * set the screen size (replaces a pending size)
+	 * @param width screen width
+	 * @param height screen height
+	 */
+	public synchronized void resize(int width, int height){
+		size = new Dimension(width, height);
+		notify();
+	}
+
+	/**
+	 * wait for the next event
+	 * @return a {@link Dimension}, a {@link Command}, a {@link MouseEvent} or a {@link Drag}
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	synchronized Object take() throws InterruptedException {
+		while (!available(true)){
+			wait();
+		}
+		return next(true);
+	}
+	
+	/**
+	 * wait for the next event until a deadline
+	 * (used between animation frames)
+	 * @param deadline value of {@code System.nanoTime()} to stop waiting at
+	 * @param input if false input is left in the queue (only sizes and paints are taken)
+	 * @return the event (see {@code take}) or null if there was none until the deadline
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	synchronized Object poll(long deadline, boolean input) throws InterruptedException {
+		while (!available(input)){
+			long left = deadline - System.nanoTime();
+			if (left <= 0){
+				return null;
+			}
+			wait(left / 1000000L, (int) (left % 1000000L));
+		}
+		return next(input);
+	}
+	
+	/**
+	 * @return true if there is an event to take
+	 */
+	private boolean available(boolean input){
+		return size != null || (input && !this.input.isEmpty()) || paint;
+	}
+	
+	/**
+	 * remove the next event (there must be one)
+	 */
+	private Object next(boolean input){
+		if (size != null){
+			Dimension d = size;
+			size = null;
+			return d;
+		}
+		if (input && !this.input.isEmpty()){
+			return this.input.poll();
+		}
+		paint = false;
+		return Command.PAINT;
+	}
+
+	private synchronized void addInput(Object o){
+		input.add(o);
+		notify();
+	}
+}
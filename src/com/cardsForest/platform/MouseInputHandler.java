@@ -29,12 +29,22 @@ public class MouseInputHandler extends MouseAdapter {
 	/** holds the current drag event information */
 	Drag drag;
 	
+	/** the game to transfer events to */
+	final Game game;
+	
+	/**
+	 * @param game the game to transfer events to
+	 */
+	public MouseInputHandler(Game game){
+		this.game = game;
+	}
+	
 	@Override
 	public void mouseClicked(MouseEvent e) {		
 		if(MouseEvent.BUTTON1_MASK == (e.getModifiers() & MouseEvent.BUTTON1_MASK)){
 			//clicked left mouse button
 			//add event to Game's queue
-			Game.queue.offer(e);
+			game.queue.offer(e);
 		}
 	}
 	
@@ -47,7 +57,7 @@ public class MouseInputHandler extends MouseAdapter {
 				//started dragging
 				//create new Drag object and add it to Game's queue
 				startedDrag = true;
-				drag = new Drag(e.getPoint());	
+				drag = new Drag(game.getSelection(), e.getPoint());	
 				counting = true;
 				dragCounter = 0;
 			}else{
@@ -56,7 +66,7 @@ public class MouseInputHandler extends MouseAdapter {
 						dragCounter++;
 					}else{
 						counting = false;
-						Game.queue.offer(drag);
+						game.queue.offer(drag);
 					}
 						
 				}
@@ -76,7 +86,7 @@ public class MouseInputHandler extends MouseAdapter {
 					
 			if(startedDrag){
 				if (counting){
-					Game.queue.offer(e);
+					game.queue.offer(e);
 				}else{
 					//finished dragging
 					drag.end(e.getPoint());					
@@ -0,0 +1,94 @@
+package com.cardsForest.glue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import com.cardsForest.foundations.Face;
+
+/**
+ * packaging time tool that packs the card images into an atlas
+ * (a single sheet image and an index of where each image sits on the sheet)
+ * <p>
+ * usage: {@code CardAtlasBuilder [resources directory]} (default: src) <br>
+ * reads back.png and the face images from the directory's card folder
+ * and writes {@code CardSpriteStore.ATLAS_IMAGE} and {@code CardSpriteStore.ATLAS_INDEX}
+ * next to them, run it again whenever a card image changes
+ * <p>
+ * not part of the game: it lives in its own source folder (tools/src, same package
+ * as {@link CardSpriteStore}) and is compiled against the game's classes
+ * <p>
+ * each row of the sheet holds one suit, the back is on its own row,
+ * images are {@code PADDING} pixels apart
+ *
+ * @see CardSpriteStore
+ * @author Amit Portnoy
+ */
+public final class CardAtlasBuilder {
+
+	/** pixels between two images on the sheet */
+	static final int PADDING = 2;
+
+	/**
+	 * static class behavior
+	 */
+	private CardAtlasBuilder(){
+		throw new UnsupportedOperationException();
+	}
+
+	public static void main(String[] args) throws IOException {
+		File dir = new File(args.length > 0? args[0] : "src", CardSpriteStore.basepath);
+
+		//the images in sheet order (faces are ordered by suit, then rank)
+		List<String> names = new ArrayList<String>();
+		for (Face face : Face.values()){
+			names.add(face.name() + ".png");
+		}
+		names.add(CardSpriteStore.BACK);
+		int columns = Face.Rank.values().length;
+
+		List<BufferedImage> images = new ArrayList<BufferedImage>();
+		int cellWidth = 0, cellHeight = 0;
+		for (String name : names){
+			BufferedImage image = ImageIO.read(new File(dir, name));
+			if (image == null){
+				throw new IOException("can't read " + name);
+			}
+			images.add(image);
+			cellWidth = Math.max(cellWidth, image.getWidth());
+			cellHeight = Math.max(cellHeight, image.getHeight());
+		}
+		cellWidth += PADDING;
+		cellHeight += PADDING;
+
+		//the back starts a new row
+		int rows = (names.size() - 1 + columns - 1) / columns + 1;
+		BufferedImage sheet = new BufferedImage(columns * cellWidth - PADDING, rows * cellHeight - PADDING,
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = sheet.createGraphics();
+		PrintWriter index = new PrintWriter(new File(dir, CardSpriteStore.ATLAS_INDEX), "UTF-8");
+		try {
+			index.println("<sheet image=\"" + CardSpriteStore.ATLAS_IMAGE + "\">");
+			for (int i = 0; i < names.size(); i++){
+				int cell = (i == names.size() - 1)? (rows - 1) * columns : i;
+				int x = (cell % columns) * cellWidth;
+				int y = (cell / columns) * cellHeight;
+				BufferedImage image = images.get(i);
+				g.drawImage(image, x, y, null);
+				index.println("\t<sprite name=\"" + names.get(i) + "\" x=\"" + x + "\" y=\"" + y
+						+ "\" width=\"" + image.getWidth() + "\" height=\"" + image.getHeight() + "\" />");
+			}
+			index.println("</sheet>");
+		} finally {
+			index.close();
+			g.dispose();
+		}
+		ImageIO.write(sheet, "png", new File(dir, CardSpriteStore.ATLAS_IMAGE));
+	}
+}